@@ -0,0 +1,104 @@
+package com.lee.data.structure.benchmark;
+
+import java.util.Random;
+
+/**
+ * the order in which a benchmark touches its {@code size} keys, every distribution
+ * is driven by a fixed seed so that two runs see the same access sequence.
+ */
+public enum KeyDistribution {
+
+	/** every key has the same probability to be accessed **/
+	UNIFORM {
+		@Override
+		int[] sequence(int size, int length, Random rand) {
+			int[] seq = new int[length];
+			for(int i=0; i<length; i++) { seq[i] = rand.nextInt(size); }
+			return seq;
+		}
+	},
+
+	/** a few hot keys take most of the accesses, see {@link ZipfianGenerator} **/
+	ZIPFIAN {
+		@Override
+		int[] sequence(int size, int length, Random rand) {
+			ZipfianGenerator zipf = new ZipfianGenerator(size, ZipfianGenerator.ZIPFIAN_CONSTANT, rand);
+			int[] seq = new int[length];
+			for(int i=0; i<length; i++) { seq[i] = zipf.next(); }
+			return seq;
+		}
+	},
+
+	/** keys are accessed one by one in their natural order, wrap around at the end **/
+	SEQUENTIAL {
+		@Override
+		int[] sequence(int size, int length, Random rand) {
+			int[] seq = new int[length];
+			for(int i=0; i<length; i++) { seq[i] = i % size; }
+			return seq;
+		}
+	};
+
+	/** the seed shared by all generated sequences **/
+	public static final long SEED = 0x5DEECE66DL;
+
+	/**
+	 * return {@code length} key indexes within {@code [0, size)}, {@code length} is rounded up
+	 * to a power of two so that callers can cycle through the sequence with a mask.
+	 */
+	public final int[] sequence(int size, int length) {
+		if(size <= 0) {
+			throw new IllegalArgumentException(String.format("size (%d) must be > 0", size));
+		}
+		if(length <= 0) {
+			throw new IllegalArgumentException(String.format("length (%d) must be > 0", length));
+		}
+		int len = Integer.highestOneBit(length);
+		if(len < length) { len <<= 1; }
+		return sequence(size, len, new Random(SEED));
+	}
+
+	abstract int[] sequence(int size, int length, Random rand);
+
+	/**
+	 * a zipfian distributed generator of integers within {@code [0, items)}, item 0 is the most popular.
+	 * <p>a modified variant from YCSB, see "Quickly Generating Billion-Record Synthetic Databases",
+	 * Jim Gray et al, SIGMOD 1994.</p>
+	 */
+	static final class ZipfianGenerator {
+		static final double ZIPFIAN_CONSTANT = 0.99;
+
+		private final int items;
+		private final double theta;
+		private final double zeta2theta;
+		private final double alpha;
+		private final double zetan;
+		private final double eta;
+		private final Random rand;
+
+		ZipfianGenerator(int items, double theta, Random rand) {
+			this.items = items;
+			this.theta = theta;
+			this.rand = rand;
+			this.zeta2theta = zeta(2, theta);
+			this.alpha = 1.0 / (1.0 - theta);
+			this.zetan = zeta(items, theta);
+			this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2theta / zetan);
+		}
+
+		private static double zeta(long n, double theta) {
+			double sum = 0;
+			for(long i=0; i<n; i++) { sum += 1 / Math.pow(i + 1, theta); }
+			return sum;
+		}
+
+		int next() {
+			double u = rand.nextDouble();
+			double uz = u * zetan;
+			if(uz < 1.0) { return 0; }
+			if(uz < 1.0 + Math.pow(0.5, theta)) { return Math.min(1, items - 1); }
+			int ret = (int) (items * Math.pow(eta * u - eta + 1, alpha));
+			return Math.min(ret, items - 1);
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package com.lee.data.structure.benchmark;
+
+import java.util.Random;
+
+/** key factories shared by all benchmarks, all keys are generated from {@link KeyDistribution#SEED} **/
+public final class Keys {
+
+	/** length of the pre-computed access sequence, big enough to defeat the branch predictor **/
+	public static final int SEQUENCE_LENGTH = 1 << 16;
+
+	/** mask to cycle through a sequence of {@link #SEQUENCE_LENGTH} **/
+	public static final int SEQUENCE_MASK = SEQUENCE_LENGTH - 1;
+
+	private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+
+	private Keys() {}
+
+	/**
+	 * return {@code size} distinct strings, each one is a random prefix followed by its index
+	 * so the tries see realistic shared prefixes and no duplicates.
+	 */
+	public static String[] strings(int size) { return strings(size, KeyDistribution.SEED); }
+
+	/** same as {@link #strings(int)}, but generated from {@code seed}, use a different seed to get absent keys **/
+	public static String[] strings(int size, long seed) {
+		Random rand = new Random(seed);
+		String[] keys = new String[size];
+		StringBuilder buf = new StringBuilder(16);
+		for(int i=0; i<size; i++) {
+			buf.setLength(0);
+			int prefixLength = 2 + rand.nextInt(6);
+			for(int j=0; j<prefixLength; j++) { buf.append(ALPHABET[rand.nextInt(ALPHABET.length)]); }
+			keys[i] = buf.append('-').append(seed).append('-').append(i).toString();
+		}
+		return keys;
+	}
+
+	/** return {@code size} distinct longs, randomly scattered over the whole long range **/
+	public static long[] longs(int size) {
+		long[] keys = new long[size];
+		long x = KeyDistribution.SEED;
+		for(int i=0; i<size; i++) {
+			x += 0x9E3779B97F4A7C15L;	// splitmix64, a bijection so the keys never collide
+			long z = x;
+			z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+			z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+			keys[i] = z ^ (z >>> 31);
+		}
+		return keys;
+	}
+}
@@ -0,0 +1,34 @@
+package com.lee.data.structure.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * run the benchmarks matched by a regex once per thread count, JMH can't take the number
+ * of threads as a {@code @Param}.
+ * <pre>
+ * java -cp target/benchmarks.jar com.lee.data.structure.benchmark.ThreadScalingRunner ConcurrentIndexerBenchmark 1,2,4,8,16,32
+ * </pre>
+ */
+public final class ThreadScalingRunner {
+
+	private static final String DEFAULT_THREADS = "1,2,4,8";
+
+	public static void main(String[] args) throws RunnerException {
+		if(args.length < 1) {
+			System.err.println("usage: ThreadScalingRunner <benchmark regex> [thread counts, default "+DEFAULT_THREADS+"]");
+			System.exit(1);
+		}
+		String include = args[0];
+		String[] threads = (args.length > 1 ? args[1] : DEFAULT_THREADS).split(",");
+		for(String t : threads) {
+			Options opt = new OptionsBuilder()
+					.include(include)
+					.threads(Integer.parseInt(t.trim()))
+					.build();
+			new Runner(opt).run();
+		}
+	}
+}
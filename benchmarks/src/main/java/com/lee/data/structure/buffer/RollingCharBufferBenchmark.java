@@ -0,0 +1,67 @@
+package com.lee.data.structure.buffer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** put then take a chunk of chars through a heap or direct {@link RollingCharBuffer} **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RollingCharBufferBenchmark {
+
+	@Param({"false", "true"})
+	boolean direct;
+
+	@Param({"4096", "1048576"})
+	int capacity;
+
+	@Param({"1", "64", "1024"})
+	int chunk;
+
+	private RollingCharBuffer buffer;
+	private char[] in;
+	private char[] out;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		buffer = RollingCharBuffer.allocate(capacity, direct);
+		in = new char[chunk];
+		out = new char[chunk];
+		for(int i=0; i<chunk; i++) { in[i] = (char) ('a' + i % 26); }
+		// start in the middle so that the chunks wrap around the end of the buffer
+		buffer.shiftPutIndex(capacity / 2 + 1);
+		buffer.shiftTakeIndex(capacity / 2 + 1);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() { buffer.release(); }
+
+	@Benchmark
+	public char[] putTakeChunk() {
+		buffer.put(in, 0, chunk);
+		buffer.take(out, 0, chunk);
+		return out;
+	}
+
+	@Benchmark
+	public char putTakeChar() {
+		buffer.put('x');
+		return buffer.take();
+	}
+}
@@ -0,0 +1,74 @@
+package com.lee.data.structure.filter;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lee.data.structure.benchmark.KeyDistribution;
+import com.lee.data.structure.benchmark.Keys;
+
+/** lookup cost of a batch of {@code batchSize} elements, one by one versus {@link BloomFilter#mightContainAll(Object[], boolean[])} **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BloomFilterBatchBenchmark {
+
+	@Param({"false", "true"})
+	boolean blocked;
+
+	@Param({"1000000", "20000000"})
+	int size;
+
+	@Param({"10000"})
+	int batchSize;
+
+	/** the fraction of the batch which has been put, a join pre-filter mostly sees misses **/
+	@Param({"0.01", "0.5"})
+	double hitRatio;
+
+	private BloomFilter<Long> target;
+	private Long[] batch;
+	private boolean[] results;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		double fpp = 0.01;
+		target = blocked ? BloomFilter.<Long>createBlocked(size, fpp) : BloomFilter.<Long>create(size, fpp);
+		long[] keys = Keys.longs(size);
+		for(int i=0; i<size; i++) { target.put(keys[i]); }
+		int[] sequence = KeyDistribution.UNIFORM.sequence(size, batchSize);
+		Random rand = new Random(KeyDistribution.SEED);
+		batch = new Long[batchSize];
+		for(int i=0; i<batchSize; i++) {
+			batch[i] = rand.nextDouble() < hitRatio ? keys[sequence[i]] : ~keys[sequence[i]];	// ~key is (likely) a miss
+		}
+		results = new boolean[batchSize];
+	}
+
+	@Benchmark
+	public boolean[] oneByOne() {
+		for(int i=0; i<batch.length; i++) { results[i] = target.mightContain(batch[i]); }
+		return results;
+	}
+
+	@Benchmark
+	public boolean[] mightContainAll() {
+		target.mightContainAll(batch, results);
+		return results;
+	}
+}
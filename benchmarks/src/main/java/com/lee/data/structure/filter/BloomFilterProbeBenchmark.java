@@ -0,0 +1,73 @@
+package com.lee.data.structure.filter;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lee.data.structure.benchmark.KeyDistribution;
+import com.lee.data.structure.benchmark.Keys;
+
+/**
+ * probing cost of {@link BloomFilter#mightContain(long, long)} with pre-computed hash codes, so the
+ * k probes aren't hidden behind hashing, fpp 0.01 takes k = 7 and 0.001 takes k = 10.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BloomFilterProbeBenchmark {
+
+	@Param({"false", "true"})
+	boolean blocked;
+
+	@Param({"100000", "10000000"})
+	int size;
+
+	@Param({"0.01", "0.001"})
+	double fpp;
+
+	/** the fraction of the probes which has been put **/
+	@Param({"0.5"})
+	double hitRatio;
+
+	private BloomFilter<Long> target;
+	private long[] hashCodes;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		target = blocked ? BloomFilter.<Long>createBlocked(size, fpp) : BloomFilter.<Long>create(size, fpp);
+		long[] keys = Keys.longs(size);
+		for(int i=0; i<size; i++) { target.put(keys[i]); }
+		int[] sequence = KeyDistribution.UNIFORM.sequence(size, Keys.SEQUENCE_LENGTH);
+		Random rand = new Random(KeyDistribution.SEED);
+		long[] hashCode = new long[2];
+		hashCodes = new long[Keys.SEQUENCE_LENGTH << 1];
+		for(int i=0; i<Keys.SEQUENCE_LENGTH; i++) {
+			long key = keys[sequence[i]];
+			target.hashFunction().hash128(rand.nextDouble() < hitRatio ? key : ~key, hashCode);	// ~key is (likely) a miss
+			hashCodes[i<<1] = hashCode[0];
+			hashCodes[(i<<1)+1] = hashCode[1];
+		}
+	}
+
+	@Benchmark
+	public boolean mightContain() {
+		int i = ((cursor++) & Keys.SEQUENCE_MASK) << 1;
+		return target.mightContain(hashCodes[i], hashCodes[i+1]);
+	}
+}
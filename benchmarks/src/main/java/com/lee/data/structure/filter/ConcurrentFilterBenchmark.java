@@ -0,0 +1,83 @@
+package com.lee.data.structure.filter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lee.data.structure.benchmark.KeyDistribution;
+import com.lee.data.structure.benchmark.Keys;
+import com.lee.data.structure.benchmark.ThreadScalingRunner;
+
+/**
+ * throughput of a {@link ConcurrentBloomFilter} and a {@link ConcurrentCuckooFilter} shared by all benchmark threads.
+ * <p>the number of threads is a JMH option rather than a {@link Param}, run it with
+ * {@code -t N} or through {@link ThreadScalingRunner} to sweep several thread counts.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentFilterBenchmark {
+
+	@Param({"1000000", "10000000"})
+	int size;
+
+	@Param({"0.01", "0.0001"})
+	double fpp;
+
+	@Param({"UNIFORM", "ZIPFIAN"})
+	KeyDistribution distribution;
+
+	ConcurrentBloomFilter<String> target;
+	ConcurrentCuckooFilter<String> cuckoo;
+	String[] keys;
+	int[] sequence;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		keys = Keys.strings(size);
+		sequence = distribution.sequence(size, Keys.SEQUENCE_LENGTH);
+		target = ConcurrentBloomFilter.create(size, fpp);
+		for(int i=0; i<size; i++) { target.put(keys[i]); }
+		cuckoo = ConcurrentCuckooFilter.create((int) (size / 0.95), fpp);	// 95% load
+		for(int i=0; i<size; i++) { cuckoo.put(keys[i]); }
+	}
+
+	/** per thread cursor, every thread starts at a different offset of the shared sequence **/
+	@State(Scope.Thread)
+	public static class Cursor {
+		private static int offset;
+		int cursor;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			synchronized(Cursor.class) { cursor = (offset += 7919); }
+		}
+
+		int next(int[] sequence) { return sequence[(cursor++) & Keys.SEQUENCE_MASK]; }
+	}
+
+	@Benchmark
+	public boolean mightContain(Cursor c) { return target.mightContain(keys[c.next(sequence)]); }
+
+	/** re-put existed elements, the bits are already set so this measures the read-before-CAS path **/
+	@Benchmark
+	public boolean put(Cursor c) { return target.put(keys[c.next(sequence)]); }
+
+	/** optimistic reads, no shared memory is written **/
+	@Benchmark
+	public boolean cuckooMightContain(Cursor c) { return cuckoo.mightContain(keys[c.next(sequence)]); }
+}
@@ -0,0 +1,99 @@
+package com.lee.data.structure.filter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lee.data.structure.benchmark.KeyDistribution;
+import com.lee.data.structure.benchmark.Keys;
+
+/** put and lookup cost of {@link BloomFilter}, {@link CuckooFilter} and {@link BinaryFuseFilter} of {@code size} elements **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FilterBenchmark {
+
+	@Param({"BloomFilter", "BlockedBloomFilter", "CuckooFilter", "BreadthFirstCuckooFilter", "SemiSortedCuckooFilter", "BinaryFuseFilter"})
+	String filter;
+
+	@Param({"10000", "1000000", "10000000"})
+	int size;
+
+	@Param({"0.01", "0.0001"})
+	double fpp;
+
+	@Param({"UNIFORM", "ZIPFIAN", "SEQUENTIAL"})
+	KeyDistribution distribution;
+
+	private Filter<String> target;
+	private String[] keys;
+	private String[] absentKeys;
+	private int[] sequence;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		keys = Keys.strings(size);
+		absentKeys = Keys.strings(size, ~KeyDistribution.SEED);
+		sequence = distribution.sequence(size, Keys.SEQUENCE_LENGTH);
+		target = of(filter, keys, fpp);
+	}
+
+	private int next() { return sequence[(cursor++) & Keys.SEQUENCE_MASK]; }
+
+	@Benchmark
+	public boolean mightContainHit() { return target.mightContain(keys[next()]); }
+
+	@Benchmark
+	public boolean mightContainMiss() { return target.mightContain(absentKeys[next()]); }
+
+	/**
+	 * build a filter of {@code size} elements from scratch, a cuckoo filter keeps duplicated
+	 * fingerprints, so re-putting existed elements wouldn't measure a steady state.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Object build() {
+		return of(filter, keys, fpp);
+	}
+
+	/** build a filter of all the {@code keys} **/
+	static Filter<String> of(String name, String[] keys, double fpp) {
+		if("BinaryFuseFilter".equals(name)) {	// static, built from all the keys at once
+			return BinaryFuseFilter.create(keys, fpp);
+		}
+		Filter<String> target = of(name, keys.length, fpp);
+		target.putAll(keys);
+		return target;
+	}
+
+	static Filter<String> of(String name, int size, double fpp) {
+		if("BloomFilter".equals(name)) {
+			return FilterType.BLOOM.create(size, fpp);
+		}else if("BlockedBloomFilter".equals(name)) {
+			return FilterType.BLOCKED_BLOOM.create(size, fpp);
+		}else if("CuckooFilter".equals(name)) {
+			return FilterType.CUCKOO.create(size, fpp);
+		}else if("BreadthFirstCuckooFilter".equals(name)) {
+			return FilterType.BREADTH_FIRST_CUCKOO.create(size, fpp);
+		}else if("SemiSortedCuckooFilter".equals(name)) {
+			return FilterType.SEMI_SORTED_CUCKOO.create(size, fpp);
+		}
+		throw new IllegalArgumentException("unknown filter: "+name);
+	}
+}
@@ -0,0 +1,78 @@
+package com.lee.data.structure.index;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lee.data.structure.benchmark.KeyDistribution;
+import com.lee.data.structure.benchmark.Keys;
+import com.lee.data.structure.benchmark.ThreadScalingRunner;
+
+/**
+ * throughput of the thread safe {@link Indexer}s shared by all benchmark threads.
+ * <p>the number of threads is a JMH option rather than a {@link Param}, run it with
+ * {@code -t N} or through {@link ThreadScalingRunner} to sweep several thread counts.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentIndexerBenchmark {
+
+	@Param({"ConcurrentHashIndexer", "ConcurrentLRUHashIndexer"})
+	String indexer;
+
+	@Param({"100000", "1000000"})
+	int size;
+
+	@Param({"UNIFORM", "ZIPFIAN"})
+	KeyDistribution distribution;
+
+	Indexer<Long, Integer> target;
+	IndexKey<Long>[] keys;
+	int[] sequence;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		keys = IndexerBenchmark.indexKeys(Keys.longs(size), 0);
+		sequence = distribution.sequence(size, Keys.SEQUENCE_LENGTH);
+		target = IndexerBenchmark.create(indexer, size);
+		for(int i=0; i<size; i++) { target.put(keys[i], i); }
+	}
+
+	/** per thread cursor, every thread starts at a different offset of the shared sequence **/
+	@State(Scope.Thread)
+	public static class Cursor {
+		private static int offset;
+		int cursor;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			synchronized(Cursor.class) { cursor = (offset += 7919); }
+		}
+
+		int next(int[] sequence) { return sequence[(cursor++) & Keys.SEQUENCE_MASK]; }
+	}
+
+	@Benchmark
+	public Integer get(Cursor c) { return target.get(keys[c.next(sequence)]); }
+
+	@Benchmark
+	public Integer put(Cursor c) {
+		int i = c.next(sequence);
+		return target.put(keys[i], i);
+	}
+}
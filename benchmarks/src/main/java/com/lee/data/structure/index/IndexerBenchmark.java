@@ -0,0 +1,98 @@
+package com.lee.data.structure.index;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lee.data.structure.benchmark.KeyDistribution;
+import com.lee.data.structure.benchmark.Keys;
+import com.lee.data.structure.index.impl.ConcurrentHashIndexer;
+import com.lee.data.structure.index.impl.ConcurrentLRUHashIndexer;
+import com.lee.data.structure.index.impl.HashIndexer;
+import com.lee.data.structure.index.impl.LRUHashIndexer;
+import com.lee.data.structure.index.impl.OrderedIndexer;
+
+/**
+ * single-threaded cost of every concrete {@link Indexer}, the LRU indexers are sized to hold
+ * all keys so {@code getHit} never misses. see {@link ConcurrentIndexerBenchmark} for thread scaling.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IndexerBenchmark {
+
+	@Param({"HashIndexer", "LRUHashIndexer", "OrderedIndexer", "ConcurrentHashIndexer", "ConcurrentLRUHashIndexer"})
+	String indexer;
+
+	@Param({"1000", "100000", "1000000"})
+	int size;
+
+	@Param({"UNIFORM", "ZIPFIAN", "SEQUENTIAL"})
+	KeyDistribution distribution;
+
+	private Indexer<Long, Integer> target;
+	private IndexKey<Long>[] keys;
+	private IndexKey<Long>[] absentKeys;
+	private int[] sequence;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		keys = indexKeys(Keys.longs(size), 0);
+		absentKeys = indexKeys(Keys.longs(size), 1);
+		sequence = distribution.sequence(size, Keys.SEQUENCE_LENGTH);
+		target = create(indexer, size);
+		for(int i=0; i<size; i++) { target.put(keys[i], i); }
+	}
+
+	private int next() { return sequence[(cursor++) & Keys.SEQUENCE_MASK]; }
+
+	@Benchmark
+	public Integer getHit() { return target.get(keys[next()]); }
+
+	@Benchmark
+	public Integer getMiss() { return target.get(absentKeys[next()]); }
+
+	@Benchmark
+	public Integer putExisted() {
+		int i = next();
+		return target.put(keys[i], i);
+	}
+
+	/** composite keys of 2 parts, {@code second} tells present keys from absent keys **/
+	@SuppressWarnings("unchecked")
+	static IndexKey<Long>[] indexKeys(long[] longs, long second) {
+		IndexKey<Long>[] keys = new IndexKey[longs.length];
+		for(int i=0; i<longs.length; i++) { keys[i] = IndexKey.of(longs[i], second); }
+		return keys;
+	}
+
+	static <V> Indexer<Long, V> create(String name, int size) {
+		if("HashIndexer".equals(name)) {
+			return new HashIndexer<Long, V>(size);
+		}else if("LRUHashIndexer".equals(name)) {
+			return new LRUHashIndexer<Long, V>(size);
+		}else if("OrderedIndexer".equals(name)) {
+			return new OrderedIndexer<Long, V>();
+		}else if("ConcurrentHashIndexer".equals(name)) {
+			return new ConcurrentHashIndexer<Long, V>(size);
+		}else if("ConcurrentLRUHashIndexer".equals(name)) {
+			return new ConcurrentLRUHashIndexer<Long, V>(size);
+		}
+		throw new IllegalArgumentException("unknown indexer: "+name);
+	}
+}
@@ -0,0 +1,117 @@
+package com.lee.data.structure.map;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lee.data.structure.benchmark.KeyDistribution;
+import com.lee.data.structure.benchmark.Keys;
+
+/**
+ * lookup and update cost of the single-threaded maps, all maps are keyed by {@link String}
+ * so the tries and the hash/skip list maps can be compared on the same key set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapBenchmark {
+
+	@Param({"HashTreeMap", "SkipListMap", "TrieMap", "SortedTrieMap", "DoubleArrayTrieMap"})
+	String map;
+
+	@Param({"1000", "100000", "1000000"})
+	int size;
+
+	@Param({"UNIFORM", "ZIPFIAN", "SEQUENTIAL"})
+	KeyDistribution distribution;
+
+	private StringMap<Integer> target;
+	private String[] keys;
+	private String[] absentKeys;
+	private int[] sequence;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		keys = Keys.strings(size);
+		absentKeys = Keys.strings(size, ~KeyDistribution.SEED);
+		sequence = distribution.sequence(size, Keys.SEQUENCE_LENGTH);
+		target = StringMap.of(map, size);
+		for(int i=0; i<size; i++) { target.put(keys[i], i); }
+	}
+
+	private int next() { return sequence[(cursor++) & Keys.SEQUENCE_MASK]; }
+
+	@Benchmark
+	public Integer getHit() { return target.get(keys[next()]); }
+
+	@Benchmark
+	public Integer getMiss() { return target.get(absentKeys[next()]); }
+
+	/** overwrite an existed key, so the map size keeps stable between iterations **/
+	@Benchmark
+	public Object putExisted() {
+		int i = next();
+		return target.put(keys[i], i);
+	}
+
+	/** a minimal common view of the maps under test, they share no interface **/
+	static abstract class StringMap<V> {
+
+		abstract V get(String key);
+
+		abstract Object put(String key, V value);
+
+		static <V> StringMap<V> of(String name, int size) {
+			if("HashTreeMap".equals(name)) {
+				final HashTreeMap<String, V> m = new HashTreeMap<String, V>();
+				return new StringMap<V>() {
+					V get(String key) { return m.get(key); }
+					Object put(String key, V value) { return m.put(key, value); }
+				};
+			}else if("SkipListMap".equals(name)) {
+				final SkipListMap<String, V> m = new SkipListMap<String, V>(maxLevel(size));
+				return new StringMap<V>() {
+					V get(String key) { return m.get(key); }
+					Object put(String key, V value) { return m.put(key, value); }
+				};
+			}else if("TrieMap".equals(name)) {
+				final TrieMap<V> m = new TrieMap<V>();
+				return new StringMap<V>() {
+					V get(String key) { return m.get(key); }
+					Object put(String key, V value) { return m.put(key, value); }
+				};
+			}else if("SortedTrieMap".equals(name)) {
+				final SortedTrieMap<V> m = new SortedTrieMap<V>();
+				return new StringMap<V>() {
+					V get(String key) { return m.get(key); }
+					Object put(String key, V value) { return m.put(key, value); }
+				};
+			}else if("DoubleArrayTrieMap".equals(name)) {
+				final DoubleArrayTrieMap<V> m = new DoubleArrayTrieMap<V>(size, 16);
+				return new StringMap<V>() {
+					V get(String key) { return m.get(key); }
+					Object put(String key, V value) { return m.put(key, value); }
+				};
+			}
+			throw new IllegalArgumentException("unknown map: "+name);
+		}
+
+		/** log2(size), the expected optimal level of a skip list with p = 1/2 **/
+		private static int maxLevel(int size) { return Math.max(1, 32 - Integer.numberOfLeadingZeros(size)); }
+	}
+}
@@ -0,0 +1,69 @@
+package com.lee.data.structure.tree;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lee.data.structure.benchmark.KeyDistribution;
+import com.lee.data.structure.benchmark.Keys;
+
+/** update and query cost of both {@link BinaryIndexedTree.Mode}s **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BinaryIndexedTreeBenchmark {
+
+	@Param({"1000", "1000000", "100000000"})
+	int capacity;
+
+	@Param({"UNIFORM", "ZIPFIAN", "SEQUENTIAL"})
+	KeyDistribution distribution;
+
+	private BinaryIndexedTree.SingleUpdateRangeSum surs;
+	private BinaryIndexedTree.RangeUpdateSingleGet rusg;
+	private int[] sequence;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		surs = BinaryIndexedTree.createWithSURSMode(capacity);
+		rusg = BinaryIndexedTree.createWithRUSGMode(capacity);
+		sequence = distribution.sequence(capacity, Keys.SEQUENCE_LENGTH);
+		for(int i=0; i<Keys.SEQUENCE_LENGTH; i++) {
+			surs.increment(sequence[i], i);
+			rusg.increment(sequence[i] / 2, sequence[i] + 1, i);
+		}
+	}
+
+	private int next() { return sequence[(cursor++) & Keys.SEQUENCE_MASK]; }
+
+	@Benchmark
+	public void increment() { surs.increment(next(), 1); }
+
+	/** prefix sum [0, index] **/
+	@Benchmark
+	public long sum() { return surs.sum(0, next() + 1); }
+
+	@Benchmark
+	public void rangeIncrement() {
+		int end = next() + 1;
+		rusg.increment(end / 2, end, 1);
+	}
+
+	@Benchmark
+	public long get() { return rusg.get(next()); }
+}
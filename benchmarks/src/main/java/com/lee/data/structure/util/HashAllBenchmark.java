@@ -0,0 +1,75 @@
+package com.lee.data.structure.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lee.data.structure.benchmark.Keys;
+
+/**
+ * bulk hashing cost of {@code size} keys by {@link HashFunction#hashAll(Object[], long[], ForkJoinPool)} in a pool
+ * of {@code parallelism} threads, against {@link HashFunction#hash128(Object, long[])} one by one.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class HashAllBenchmark {
+
+	@Param({"MURMUR3", "WYHASH"})
+	HashAlgorithm algorithm;
+
+	@Param({"10000000"})
+	int size;
+
+	@Param({"1", "4", "16"})
+	int parallelism;
+
+	private HashFunction hashFunction;
+	private ForkJoinPool pool;
+	private String[] keys;
+	private long[] dest;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		hashFunction = algorithm.withSeed(20170101L);
+		pool = new ForkJoinPool(parallelism);
+		keys = Keys.strings(size);
+		dest = new long[size << 1];
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() { pool.shutdown(); }
+
+	@Benchmark
+	public long[] sequential() {
+		long[] hashCode = new long[2];
+		for(int i=0; i<keys.length; i++) {
+			hashFunction.hash128(keys[i], hashCode);
+			dest[i<<1] = hashCode[0];
+			dest[(i<<1)+1] = hashCode[1];
+		}
+		return dest;
+	}
+
+	@Benchmark
+	public long[] hashAll() {
+		hashFunction.hashAll(keys, dest, pool);
+		return dest;
+	}
+}
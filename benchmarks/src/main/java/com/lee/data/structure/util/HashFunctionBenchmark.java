@@ -0,0 +1,93 @@
+package com.lee.data.structure.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lee.data.structure.benchmark.Keys;
+
+/** 128 bits hash cost of the {@link HashAlgorithm algorithms} on keys of {@code length} chars, bytes and bytes of a direct buffer **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashFunctionBenchmark {
+
+	private static final int NUM_OF_KEYS = 1024;
+
+	@Param({"MURMUR3", "XXHASH64", "WYHASH"})
+	HashAlgorithm algorithm;
+
+	@Param({"8", "16", "64", "256"})
+	int length;
+
+	private HashFunction hashFunction;
+	private String[] strings;
+	private byte[][] bytes;
+	private ByteBuffer[] buffers;
+	private final long[] dest = new long[2];
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		hashFunction = algorithm.withSeed(20170101L);
+		String[] keys = Keys.strings(NUM_OF_KEYS);
+		strings = new String[NUM_OF_KEYS];
+		bytes = new byte[NUM_OF_KEYS][];
+		buffers = new ByteBuffer[NUM_OF_KEYS];
+		ByteBuffer direct = ByteBuffer.allocateDirect(NUM_OF_KEYS * length);	// keys packed as in a network buffer
+		for(int i=0; i<NUM_OF_KEYS; i++) {
+			char[] chars = new char[length];
+			Arrays.fill(chars, 'x');
+			keys[i].getChars(0, Math.min(length, keys[i].length()), chars, 0);
+			strings[i] = new String(chars);
+			bytes[i] = strings[i].getBytes();
+			direct.limit((i+1) * length).position(i * length);
+			buffers[i] = direct.slice();
+			buffers[i].put(bytes[i]).flip();
+		}
+	}
+
+	private int next() { return (cursor++) & (NUM_OF_KEYS - 1); }
+
+	@Benchmark
+	public long chars() {
+		hashFunction.hash128(strings[next()], dest);
+		return dest[0] ^ dest[1];
+	}
+
+	@Benchmark
+	public long bytes() {
+		byte[] key = bytes[next()];
+		hashFunction.hash128(key, 0, key.length, dest);
+		return dest[0] ^ dest[1];
+	}
+
+	/** read in place, no copy into heap **/
+	@Benchmark
+	public long directBuffer() {
+		hashFunction.hash128(buffers[next()], dest);
+		return dest[0] ^ dest[1];
+	}
+
+	@Benchmark
+	public long longValue() {
+		hashFunction.hash128((long) cursor++, dest);
+		return dest[0] ^ dest[1];
+	}
+}
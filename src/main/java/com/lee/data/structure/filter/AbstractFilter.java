@@ -0,0 +1,51 @@
+package com.lee.data.structure.filter;
+
+/** the batch operations of a {@link Filter} element by element, a subclass overrides them if it has a faster way **/
+public abstract class AbstractFilter<T> implements Filter<T> {
+
+	/** per thread 128 bits hash code of the element under operation, shared by all filters **/
+	private static final ThreadLocal<long[]> HASH_CODE = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() { return new long[2]; }
+	};
+
+	@Override
+	public boolean putAll(T[] elements) {
+		boolean changed = false;
+		for(T element : elements) { changed |= put(element); }
+		return changed;
+	}
+
+	@Override
+	public boolean putAll(Iterable<? extends T> elements) {
+		boolean changed = false;
+		for(T element : elements) { changed |= put(element); }
+		return changed;
+	}
+
+	@Override
+	public boolean[] mightContainAll(T[] elements) {
+		boolean[] results = new boolean[elements.length];
+		mightContainAll(elements, results);
+		return results;
+	}
+
+	@Override
+	public void mightContainAll(T[] elements, boolean[] results) {
+		checkResultsLength(elements, results);
+		for(int i=0; i<elements.length; i++) { results[i] = mightContain(elements[i]); }
+	}
+
+	/**
+	 * return the 128 bits hash code array of the calling thread, so that concurrent lookups never share one.
+	 * the halves are copied out before another filter is called, e.g. a stage, which might reuse the array.
+	 */
+	static long[] threadHashCode() { return HASH_CODE.get(); }
+
+	static void checkResultsLength(Object[] elements, boolean[] results) {
+		if(results.length < elements.length) {
+			throw new IllegalArgumentException(String.format("results length (%d) must be >= elements length (%d)",
+					results.length, elements.length));
+		}
+	}
+}
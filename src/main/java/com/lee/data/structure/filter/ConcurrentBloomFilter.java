@@ -0,0 +1,182 @@
+package com.lee.data.structure.filter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.lee.data.structure.util.HashFunction;
+import com.lee.data.structure.util.Hashing;
+
+/**
+ * a thread safe variant of {@link BloomFilter}, many threads can put into and look up
+ * a single filter at the same time, no lock.
+ * <p>a bit is set by compare and swap on its word, the number of set bits is kept in a
+ * striped counter, so concurrent puts on different words never contend on a shared field.</p>
+ * <p>a filter with the same parameters and {@link HashFunction#seed() seed} as a {@link BloomFilter}
+ * sets exactly the same bits for the same elements.</p>
+ * @ThreadSafe
+ **/
+public final class ConcurrentBloomFilter<T> extends AbstractFilter<T> {
+	
+	/** the max permitted number of hashes per element **/
+	private static final int MAX_NUM_OF_HASH_FUNCTION = 256;
+	
+	/** the bit set for ConcurrentBloomFilter **/
+	private final Bits bits;
+	
+	/** number of hashes per element **/
+	private final int numOfHashFunctions;
+	
+	/** hash function of elements **/
+	private final HashFunction hashFunction;
+	
+	private ConcurrentBloomFilter(Bits bits, int numOfHashFunctions, HashFunction hashFunction) {
+		if(bits == null) {
+			throw new NullPointerException("underlying bit set is null");
+		}
+		if(hashFunction == null) {
+			throw new NullPointerException("hash function is null");
+		}
+		if(numOfHashFunctions <= 0) {
+			throw new IllegalArgumentException(String.format("numOfHashFunctions (%d) must be > 0", numOfHashFunctions));
+		}
+		if(numOfHashFunctions > MAX_NUM_OF_HASH_FUNCTION) {
+			throw new IllegalArgumentException(String.format("numOfHashFunctions (%d) must be <= %d", numOfHashFunctions, MAX_NUM_OF_HASH_FUNCTION));
+		}
+		this.bits = bits;
+		this.numOfHashFunctions = numOfHashFunctions;
+		this.hashFunction = hashFunction;
+	}
+	
+	/**
+	 * put an element into this {@link ConcurrentBloomFilter}, ensure that subsequent invocations of
+     * {@link #mightContain(element)} with the same element, from any thread, will always return {@code true}.
+	 * @return true if the {@link #bits} back of bloom filter changed by this operation.
+	 * <p>note that when two threads put the same element at the same time, both of them might return
+	 * {@code true}, each one has set some of the bits.</p>
+	 */
+	@Override
+	public boolean put(T element) {
+		long[] hashCode = threadHashCode();
+		hashFunction.hash128(element, hashCode);
+		boolean bitsChanged = false;
+		long hash = hashCode[0], hash2 = hashCode[1];
+		for(int i=0; i<numOfHashFunctions; i++) {
+			bitsChanged |= bits.set(hash);
+			hash += hash2;
+		}
+		return bitsChanged;
+	}
+	
+	/**
+	 * return {@code true} if the element <i>might</i> have been put in this Bloom filter,
+     * {@code false} if this is <i>definitely</i> not the case.
+     * <p>an element being put by another thread at the same time might be reported either way.</p>
+	 */
+	@Override
+	public boolean mightContain(T element) {
+		long[] hashCode = threadHashCode();
+		hashFunction.hash128(element, hashCode);
+		long hash = hashCode[0], hash2 = hashCode[1];
+		for(int i=0; i<numOfHashFunctions; i++) {
+			if(!bits.get(hash)) { return false; }
+			hash += hash2;
+		}
+		return true;
+	}
+	
+	/**
+	 * return current probability that {@link #mightContain(element)} will erroneously return {@code true}
+     * for an element that has not actually been put in the {@link ConcurrentBloomFilter}.
+     * <p>a snapshot while other threads are putting elements, see {@link BloomFilter#currentFpp()}.</p>
+	 */
+	public double currentFpp() {
+		return Math.pow(((double)bits.bitCount.sum()) / bits.bitSize, numOfHashFunctions);
+	}
+	
+	@Override
+	public FilterStats stats() {
+		double fillRatio = ((double)bits.bitCount.sum()) / bits.bitSize;
+		return new FilterStats(fillRatio, Math.pow(fillRatio, numOfHashFunctions), 0, bits.bitSize >>> 3);
+	}
+	
+	/** return the hash function of elements within this ConcurrentBloomFilter **/
+	@Override
+	public HashFunction hashFunction() { return hashFunction; }
+	
+	/**
+	 * create a {@link ConcurrentBloomFilter ConcurrentBloomFilter<T>} with the expected number of
+     * element and expected false positive probability.
+     * <p>elements are hashed by {@link Hashing#murmur3()}, whose seed differs between JVMs</p>
+	 * @param expectedCapacity 	expected number of elements
+	 * @param fpp	expected false positive probability
+	 * @return	a {@link ConcurrentBloomFilter}
+	 * @see BloomFilter#create(int, double)
+	 */
+	public static <T> ConcurrentBloomFilter<T> create(int expectedCapacity, double fpp) {
+		return create(expectedCapacity, fpp, Hashing.murmur3());
+	}
+	
+	/**
+	 * create a {@link ConcurrentBloomFilter ConcurrentBloomFilter<T>} with the expected number of
+     * element, expected false positive probability and the hash function of elements.
+	 * @param expectedCapacity 	expected number of elements
+	 * @param fpp	expected false positive probability
+	 * @param hashFunction	hash function of elements, e.g {@link Hashing#murmur3(long)}
+	 * @return	a {@link ConcurrentBloomFilter}
+	 * @see BloomFilter#create(int, double, HashFunction)
+	 */
+	public static <T> ConcurrentBloomFilter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction) {
+		if(expectedCapacity <= 0) {
+			throw new IllegalArgumentException(String.format("expectedCapacity (%d) must be > 0", expectedCapacity));
+		}
+		if(fpp <= 0) {
+			throw new IllegalArgumentException(String.format("fpp (%f) must be > 0", fpp));
+		}
+		if(fpp >= 1) {
+			throw new IllegalArgumentException(String.format("fpp (%f) must be < 1", fpp));
+		}
+		int numOfHashFunctions = BloomFilter.optimalNumOfHashFunctions(fpp);
+		long optimalTotalNumOfBits = BloomFilter.optimalTotalNumOfBits(expectedCapacity, fpp);
+		
+		return new ConcurrentBloomFilter<T>(new Bits(optimalTotalNumOfBits), numOfHashFunctions, hashFunction);
+	}
+	
+	/** same layout as {@link BloomFilter}'s bit set, but over an {@link AtomicLongArray} **/
+	private static final class Bits {
+		static final long MAX_BIT_CAPACITY = ((long)Integer.MAX_VALUE) * Long.SIZE;
+		final AtomicLongArray words;
+		final long bitSize;
+		final LongAdder bitCount = new LongAdder();	// total number of set bits (binary flag = 1)
+		
+		Bits(long capacity) {
+			if(capacity > MAX_BIT_CAPACITY) { capacity = MAX_BIT_CAPACITY; }
+			words = new AtomicLongArray((int)((capacity-1) / Long.SIZE)+1);
+			bitSize = words.length() * Long.SIZE;
+		}
+		
+		/** return {@code true} if this thread flipped the bit from 0 to 1 **/
+		boolean set(long index) {
+			index = ensureIndex(index);
+			int i = (int)(index >>> 6);
+			long mask = 1L << index;
+			long word;
+			do {
+				word = words.get(i);
+				if((word & mask) != 0) { return false; }	// already set, no write, no cache line invalidation
+			}while(!words.compareAndSet(i, word, word | mask));
+			bitCount.increment();
+			return true;
+		}
+		
+		/** the same mapping from a hash to a bit index as {@link BloomFilter}'s bit set **/
+		private long ensureIndex(long index) {
+			long wordIndex = ((index >>> 32) * words.length()) >>> 32;
+			return (wordIndex << 6) | (index & 0x3fL);
+		}
+		
+		boolean get(long index) {
+			index = ensureIndex(index);
+			return (words.get((int)(index >>> 6)) & (1L << index)) != 0;
+		}
+	}
+}
@@ -0,0 +1,378 @@
+package com.lee.data.structure.filter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+import com.lee.data.structure.util.HashFunction;
+import com.lee.data.structure.util.Hashing;
+
+/**
+ * a thread safe variant of {@link CuckooFilter} with fingerprints within 64 bits.
+ * <p>buckets are guarded by striped {@link StampedLock}s. a lookup reads the two candidate buckets
+ * without any lock and validates the stamps of their stripes afterwards, so readers never write
+ * shared memory and scale with the number of threads. a put or remove locks the stripes of the
+ * buckets it changes.</p>
+ * <p>a put never drops a fingerprint: it searches a path of relocations first without moving
+ * anything, then moves the fingerprints along the path backwards from the empty entry, each one
+ * is copied before being cleared. so every fingerprint always exists in one of its two buckets
+ * (see "Algorithmic Improvements for Fast Concurrent Cuckoo Hashing", Li et al, 2014).</p>
+ * @ThreadSafe
+ **/
+public final class ConcurrentCuckooFilter<T> extends AbstractFilter<T> {
+
+	/** the max number of stripes, more stripes than threads makes contention unlikely **/
+	private static final int MAX_NUM_OF_STRIPES = 1 << 12;
+
+	/** times of optimistic reads before a lookup falls back to read locks **/
+	private static final int MAX_OPTIMISTIC_READ_TIMES = 4;
+
+	/** packed fingerprints, neighbor buckets might share a word, so a word is always updated by CAS **/
+	private final AtomicLongArray bits;
+
+	private final int numOfBuckets;
+	private final int numOfEntries;
+	private final int fingerprintLength;
+	private final int bitLengthOfBucket;
+	private final long fingerprintMask;
+
+	/** the stripe of bucket i is {@code stripes[i & stripeMask]} **/
+	private final StampedLock[] stripes;
+	private final int stripeMask;
+
+	/** number of elements in this ConcurrentCuckooFilter **/
+	private final LongAdder numOfExistedElements = new LongAdder();
+
+	/** number of elements rejected by a full filter **/
+	private final LongAdder numOfRejectedElements = new LongAdder();
+
+	/** hash function of elements **/
+	private final HashFunction hashFunction;
+
+	private ConcurrentCuckooFilter(int numOfBuckets, int numOfEntries, int fingerprintLength, HashFunction hashFunction) {
+		if(numOfBuckets <= 1) {
+			throw new IllegalArgumentException(String.format("numOfBuckets (%d) must be > 1", numOfBuckets));
+		}
+		if(numOfEntries <= 0) {
+			throw new IllegalArgumentException(String.format("numOfEntries (%d) must be > 0", numOfEntries));
+		}
+		if(fingerprintLength <= 0 || fingerprintLength > Long.SIZE) {
+			throw new IllegalArgumentException(String.format("fingerprintLength (%d) must be > 0 and <= 64", fingerprintLength));
+		}
+		if(hashFunction == null) {
+			throw new NullPointerException("hash function is null");
+		}
+		long bitLength = ((long)numOfBuckets) * numOfEntries * fingerprintLength;
+		if((bitLength - 1) / Long.SIZE + 1 > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(String.format("too larger numOfBuckets (%d) or numOfEntries (%d) or fingerprintLength (%d)",
+					numOfBuckets, numOfEntries, fingerprintLength));
+		}
+		this.bits = new AtomicLongArray((int) ((bitLength - 1) / Long.SIZE + 1));
+		this.numOfBuckets = numOfBuckets;
+		this.numOfEntries = numOfEntries;
+		this.fingerprintLength = fingerprintLength;
+		this.bitLengthOfBucket = numOfEntries * fingerprintLength;
+		this.fingerprintMask = -1L >>> (-fingerprintLength);
+		int numOfStripes = Math.min(MAX_NUM_OF_STRIPES, Integer.highestOneBit(numOfBuckets));
+		this.stripes = new StampedLock[numOfStripes];
+		for(int i=0; i<numOfStripes; i++) { stripes[i] = new StampedLock(); }
+		this.stripeMask = numOfStripes - 1;
+		this.hashFunction = hashFunction;
+	}
+
+	/**
+	 * put an element into this {@link ConcurrentCuckooFilter}, ensure that subsequent invocations of
+     * {@link #mightContain(element)} with the same element, from any thread, will always return {@code true}.
+	 * @return true if the element has been put, false if the filter is too full to put it, no empty
+	 * entry is reachable within {@link CuckooFilter#MAX_KICK_OUT_TIMES} relocations. unlike
+	 * {@link CuckooFilter#put(Object)}, no existed element is kicked out.
+	 */
+	@Override
+	public boolean put(T element) {
+		long[] hashCode = threadHashCode();
+		long fingerprint = fingerprintOf(element, hashCode);
+		int index = primaryIndex(hashCode);
+		int alternate = alternate(index, fingerprint);
+		int[] path = null;
+		for(;;) {
+			if(putIntoEmpty(fingerprint, index, alternate)) { break; }
+			if(path == null) { path = new int[CuckooFilter.MAX_KICK_OUT_TIMES << 1]; }
+			int length = searchPath(ThreadLocalRandom.current().nextBoolean() ? index : alternate, path);
+			if(length < 0) {	// too full
+				numOfRejectedElements.increment();
+				return false;
+			}
+			movePath(path, length);		// make an empty entry in index or alternate, or fail and retry
+		}
+		numOfExistedElements.increment();
+		return true;
+	}
+
+	private boolean putIntoEmpty(long fingerprint, int index, int alternate) {
+		StampedLock first = stripeOf(Math.min(stripeIndex(index), stripeIndex(alternate)));
+		StampedLock second = stripeOf(Math.max(stripeIndex(index), stripeIndex(alternate)));
+		long stamp1 = first.writeLock();
+		long stamp2 = first == second ? 0 : second.writeLock();
+		try {
+			return putIntoEmpty(fingerprint, index) || putIntoEmpty(fingerprint, alternate);
+		}finally {
+			if(first != second) { second.unlockWrite(stamp2); }
+			first.unlockWrite(stamp1);
+		}
+	}
+
+	private boolean putIntoEmpty(long fingerprint, int bucketIndex) {
+		for(int entry=0; entry<numOfEntries; entry++) {
+			long bitIndex = bitIndex(bucketIndex, entry);
+			if(get(bitIndex) == 0) {
+				set(bitIndex, fingerprint);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * random walk from bucket {@code index} without moving anything, until a bucket with an empty entry.
+	 * @return	the number of relocations, {@code path} is filled with {bucket index, entry index} of each
+	 * one, the last pair is the empty entry. or -1 if not found within {@link CuckooFilter#MAX_KICK_OUT_TIMES}.
+	 */
+	private int searchPath(int index, int[] path) {
+		ThreadLocalRandom rand = ThreadLocalRandom.current();
+		for(int i=0; i<CuckooFilter.MAX_KICK_OUT_TIMES; i++) {
+			int entry = rand.nextInt(numOfEntries);
+			path[i<<1] = index;
+			path[(i<<1)+1] = entry;
+			index = alternate(index, get(bitIndex(index, entry)));	// racy read, validated by movePath()
+			for(int e=0; e<numOfEntries; e++) {
+				if(get(bitIndex(index, e)) == 0 && i+1 < CuckooFilter.MAX_KICK_OUT_TIMES) {
+					path[(i+1)<<1] = index;
+					path[((i+1)<<1)+1] = e;
+					return i + 1;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * move the fingerprints along the {@code path} backwards, the last but one to the empty entry, and so on.
+	 * stop at the first relocation invalidated by other threads, the moved ones keep valid anyway.
+	 */
+	private void movePath(int[] path, int length) {
+		for(int i=length-1; i>=0; i--) {
+			int from = path[i<<1], to = path[(i+1)<<1];
+			long fromBitIndex = bitIndex(from, path[(i<<1)+1]);
+			long toBitIndex = bitIndex(to, path[((i+1)<<1)+1]);
+			StampedLock first = stripeOf(Math.min(stripeIndex(from), stripeIndex(to)));
+			StampedLock second = stripeOf(Math.max(stripeIndex(from), stripeIndex(to)));
+			long stamp1 = first.writeLock();
+			long stamp2 = first == second ? 0 : second.writeLock();
+			try {
+				long fingerprint = get(fromBitIndex);
+				if(fingerprint == 0 || get(toBitIndex) != 0 || alternate(from, fingerprint) != to) { return; }
+				set(toBitIndex, fingerprint);	// copy, then clear, always exists in one of its buckets
+				set(fromBitIndex, 0);
+			}finally {
+				if(first != second) { second.unlockWrite(stamp2); }
+				first.unlockWrite(stamp1);
+			}
+		}
+	}
+
+	/**
+	 * return {@code true} if the element <i>might</i> have been put in this Cuckoo filter,
+     * {@code false} if this is <i>definitely</i> not the case.
+	 */
+	@Override
+	public boolean mightContain(T element) {
+		long[] hashCode = threadHashCode();
+		long fingerprint = fingerprintOf(element, hashCode);
+		int index = primaryIndex(hashCode);
+		int alternate = alternate(index, fingerprint);
+		StampedLock first = stripeOf(stripeIndex(index));
+		StampedLock second = stripeOf(stripeIndex(alternate));
+		for(int i=0; i<MAX_OPTIMISTIC_READ_TIMES; i++) {
+			long stamp1 = first.tryOptimisticRead();
+			long stamp2 = second.tryOptimisticRead();
+			if(stamp1 == 0 || stamp2 == 0) { continue; }	// being written
+			boolean contained = contain(fingerprint, index) || contain(fingerprint, alternate);
+			if(first.validate(stamp1) && second.validate(stamp2)) { return contained; }
+		}
+		// under heavy writes, block the writers of both buckets
+		if(stripeIndex(index) > stripeIndex(alternate)) { StampedLock t = first; first = second; second = t; }
+		long stamp1 = first.readLock();
+		long stamp2 = first == second ? 0 : second.readLock();
+		try {
+			return contain(fingerprint, index) || contain(fingerprint, alternate);
+		}finally {
+			if(first != second) { second.unlockRead(stamp2); }
+			first.unlockRead(stamp1);
+		}
+	}
+
+	private boolean contain(long fingerprint, int bucketIndex) {
+		for(int entry=0; entry<numOfEntries; entry++) {
+			if(get(bitIndex(bucketIndex, entry)) == fingerprint) { return true; }
+		}
+		return false;
+	}
+
+	/**
+	 * remove the {@code element} from this {@link ConcurrentCuckooFilter}.
+	 * @return true if the {@code element} definitely removed from this cuckoo filter after this operation.
+	 * otherwise false, representing the {@code element} isn't exist into the filter.
+	 * @see CuckooFilter#remove(Object)
+	 */
+	public boolean remove(T element) {
+		long[] hashCode = threadHashCode();
+		long fingerprint = fingerprintOf(element, hashCode);
+		int index = primaryIndex(hashCode);
+		int alternate = alternate(index, fingerprint);
+		StampedLock first = stripeOf(Math.min(stripeIndex(index), stripeIndex(alternate)));
+		StampedLock second = stripeOf(Math.max(stripeIndex(index), stripeIndex(alternate)));
+		long stamp1 = first.writeLock();
+		long stamp2 = first == second ? 0 : second.writeLock();
+		try {
+			if(remove(fingerprint, index) || remove(fingerprint, alternate)) {
+				numOfExistedElements.decrement();
+				return true;
+			}
+			return false;
+		}finally {
+			if(first != second) { second.unlockWrite(stamp2); }
+			first.unlockWrite(stamp1);
+		}
+	}
+
+	private boolean remove(long fingerprint, int bucketIndex) {
+		for(int entry=0; entry<numOfEntries; entry++) {
+			long bitIndex = bitIndex(bucketIndex, entry);
+			if(get(bitIndex) == fingerprint) {
+				set(bitIndex, 0);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** return number of existed elements within this ConcurrentCuckooFilter, a snapshot under concurrent updates **/
+	public long numOfExistedElements() { return numOfExistedElements.sum(); }
+
+	/** return number of buckets within this ConcurrentCuckooFilter **/
+	public int numOfBuckets() { return numOfBuckets; }
+
+	/** return number of entries per bucket within this ConcurrentCuckooFilter **/
+	public int numOfEntries() { return numOfEntries; }
+
+	/** return length of fingerprint in bits within this ConcurrentCuckooFilter **/
+	public int fingerprintLength() { return fingerprintLength; }
+
+	/** a snapshot under concurrent updates, the rejected elements are reported as kicked out **/
+	@Override
+	public FilterStats stats() {
+		double load = ((double)numOfExistedElements.sum()) / ((long)numOfBuckets * numOfEntries);
+		return new FilterStats(load, CuckooFilter.currentFpp(load, numOfEntries, fingerprintLength),
+				numOfRejectedElements.sum(), ((long)bits.length()) << 3);
+	}
+
+	/** return the hash function of elements within this ConcurrentCuckooFilter **/
+	@Override
+	public HashFunction hashFunction() { return hashFunction; }
+
+	/* same fingerprints and bucket indexes as CuckooFilter, a filter with the same parameters and seed is laid out the same */
+
+	private long fingerprintOf(T element, long[] hashCode) {
+		hashFunction.hash128(element, hashCode);
+		long fingerprint = hashCode[0] & fingerprintMask;
+		return fingerprint == 0 ? 1 : fingerprint;		// 0 represents an empty entry
+	}
+
+	private int primaryIndex(long[] hashCode) {
+		return (int) (((hashCode[1] & 0xffffffffL) * numOfBuckets) >>> 32);
+	}
+
+	private int alternate(int index, long fingerprint) {
+		return CuckooFilter.alternate(index, CuckooFilter.hashFingerprint(fingerprint), numOfBuckets);
+	}
+
+	private int stripeIndex(int bucketIndex) { return bucketIndex & stripeMask; }
+
+	private StampedLock stripeOf(int stripeIndex) { return stripes[stripeIndex]; }
+
+	private long bitIndex(int bucketIndex, int entryIndex) {
+		return ((long) bucketIndex) * bitLengthOfBucket + entryIndex * fingerprintLength;
+	}
+
+	/** return the fingerprint at {@code bitIndex}, 0 if the entry is empty **/
+	private long get(long bitIndex) {
+		int segmentIndex = (int) (bitIndex >>> 6);
+		int offset = (int) (bitIndex & 0x3fL);
+		long fingerprint = bits.get(segmentIndex) >>> offset;
+		if(offset + fingerprintLength > Long.SIZE) {	// cross segment
+			fingerprint |= bits.get(segmentIndex+1) << (-offset);
+		}
+		return fingerprint & fingerprintMask;
+	}
+
+	/** set the fingerprint at {@code bitIndex}, the caller must hold the write lock of its bucket **/
+	private void set(long bitIndex, long fingerprint) {
+		int segmentIndex = (int) (bitIndex >>> 6);
+		int offset = (int) (bitIndex & 0x3fL);
+		int endOffset = offset + fingerprintLength;
+		if(endOffset <= Long.SIZE) {
+			setBits(segmentIndex, fingerprintMask << offset, fingerprint << offset);
+		}else {		// cross segment
+			setBits(segmentIndex, -1L << offset, fingerprint << offset);
+			setBits(segmentIndex+1, -1L >>> (-endOffset), fingerprint >>> (-offset));
+		}
+	}
+
+	/** replace the {@code mask} bits of a segment, other bits might belong to a neighbor bucket being changed **/
+	private void setBits(int segmentIndex, long mask, long value) {
+		long segment;
+		do {
+			segment = bits.get(segmentIndex);
+		}while(!bits.compareAndSet(segmentIndex, segment, (segment & ~mask) | (value & mask)));
+	}
+
+	/**
+	 * create a {@link ConcurrentCuckooFilter ConcurrentCuckooFilter<T>} with the expected number of
+     * element and expected false positive probability.
+     * <p>elements are hashed by {@link Hashing#murmur3()}, whose seed differs between JVMs</p>
+	 * @param expectedCapacity 	expected number of elements
+	 * @param fpp	expected false positive probability, it takes a fingerprint within 64 bits
+	 * @return	a {@link ConcurrentCuckooFilter}
+	 * @see CuckooFilter#create(int, double)
+	 */
+	public static <T> ConcurrentCuckooFilter<T> create(int expectedCapacity, double fpp) {
+		return create(expectedCapacity, fpp, Hashing.murmur3());
+	}
+
+	/**
+	 * create a {@link ConcurrentCuckooFilter ConcurrentCuckooFilter<T>} with the expected number of
+     * element, expected false positive probability and the hash function of elements.
+	 * @param expectedCapacity 	expected number of elements
+	 * @param fpp	expected false positive probability, it takes a fingerprint within 64 bits
+	 * @param hashFunction	hash function of elements, e.g {@link Hashing#murmur3(long)}
+	 * @return	a {@link ConcurrentCuckooFilter}
+	 * @throws IllegalArgumentException	if {@code fpp} takes a fingerprint longer than 64 bits
+	 */
+	public static <T> ConcurrentCuckooFilter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction) {
+		if(expectedCapacity <= 0) {
+			throw new IllegalArgumentException(String.format("expectedCapacity (%d) must be > 0", expectedCapacity));
+		}
+		if(fpp <= 0) {
+			throw new IllegalArgumentException(String.format("fpp (%f) must be > 0", fpp));
+		}
+		if(fpp >= 1) {
+			throw new IllegalArgumentException(String.format("fpp (%f) must be < 1", fpp));
+		}
+
+		int numOfEntries = CuckooFilter.EMPIRICAL_BUCKET_SIZE;
+		int fingerprintLength = CuckooFilter.optimalFingerprintLength(numOfEntries, fpp);
+		int numOfBuckets = CuckooFilter.numOfBuckets(expectedCapacity, numOfEntries);
+		return new ConcurrentCuckooFilter<T>(numOfBuckets, numOfEntries, fingerprintLength, hashFunction);
+	}
+}
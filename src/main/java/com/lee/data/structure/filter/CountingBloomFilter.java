@@ -0,0 +1,213 @@
+package com.lee.data.structure.filter;
+
+import com.lee.data.structure.util.HashFunction;
+import com.lee.data.structure.util.Hashing;
+
+/**
+ * a {@link BloomFilter} which supports removal, every bit is replaced by a 4 bits counter,
+ * 16 counters are packed into a {@code long}.
+ * <p>a counter saturates at 15, a saturated counter is never decremented since the number of
+ * elements behind it is unknown, so a removal never causes a false negative. with the optimal
+ * number of hashes the probability of a counter reaching 16 is about 1.37e-15 * m, see
+ * "Summary Cache: A Scalable Wide-Area Web Cache Sharing Protocol", Fan et al, 2000.</p>
+ * <p>note that only an element has been put can be removed, removing an element never put but
+ * {@link #mightContain(Object) might contained} (a false positive) removes other elements.</p>
+ * @NotThreadSafe
+ **/
+public final class CountingBloomFilter<T> extends AbstractFilter<T> {
+
+	/** the max permitted number of hashes per element **/
+	private static final int MAX_NUM_OF_HASH_FUNCTION = 256;
+
+	/** the counters for CountingBloomFilter **/
+	private final Counters counters;
+
+	/** number of hashes per element **/
+	private final int numOfHashFunctions;
+
+	/** hash function of elements **/
+	private final HashFunction hashFunction;
+
+	private CountingBloomFilter(Counters counters, int numOfHashFunctions, HashFunction hashFunction) {
+		if(counters == null) {
+			throw new NullPointerException("underlying counters is null");
+		}
+		if(hashFunction == null) {
+			throw new NullPointerException("hash function is null");
+		}
+		if(numOfHashFunctions <= 0) {
+			throw new IllegalArgumentException(String.format("numOfHashFunctions (%d) must be > 0", numOfHashFunctions));
+		}
+		if(numOfHashFunctions > MAX_NUM_OF_HASH_FUNCTION) {
+			throw new IllegalArgumentException(String.format("numOfHashFunctions (%d) must be <= %d", numOfHashFunctions, MAX_NUM_OF_HASH_FUNCTION));
+		}
+		this.counters = counters;
+		this.numOfHashFunctions = numOfHashFunctions;
+		this.hashFunction = hashFunction;
+	}
+
+	/**
+	 * put an element into this {@link CountingBloomFilter}, ensure that subsequent invocations of
+     * {@link #mightContain(element)} with the same element will always return {@code true}, until
+     * it is {@link #remove(Object) removed} as many times as it is put.
+	 * @return true if a counter changed from 0 by this operation, which means this is the first
+	 * time {@code element} has been added to the filter.
+	 */
+	@Override
+	public boolean put(T element) {
+		long[] hashCode = threadHashCode();
+		hashFunction.hash128(element, hashCode);
+		boolean countersChanged = false;
+		long hash = hashCode[0], hash2 = hashCode[1];
+		for(int i=0; i<numOfHashFunctions; i++) {
+			countersChanged |= counters.increment(hash);
+			hash += hash2;
+		}
+		return countersChanged;
+	}
+
+	/**
+	 * return {@code true} if the element <i>might</i> have been put in this Bloom filter,
+     * {@code false} if this is <i>definitely</i> not the case.
+	 */
+	@Override
+	public boolean mightContain(T element) {
+		long[] hashCode = threadHashCode();
+		hashFunction.hash128(element, hashCode);
+		long hash = hashCode[0], hash2 = hashCode[1];
+		for(int i=0; i<numOfHashFunctions; i++) {
+			if(counters.get(hash) == 0) { return false; }
+			hash += hash2;
+		}
+		return true;
+	}
+
+	/**
+	 * remove an element put before from this {@link CountingBloomFilter}.
+	 * @return true if the {@code element} {@link #mightContain(Object) might be contained} and has been
+	 * removed, otherwise false, representing the {@code element} is definitely not in the filter.
+	 * <p>note that although return {@code true}, subsequent invocations of {@link #mightContain(element)}
+	 * with the same element might return {@code true}.</p>
+	 */
+	public boolean remove(T element) {
+		long[] hashCode = threadHashCode();
+		hashFunction.hash128(element, hashCode);
+		long hash = hashCode[0], hash2 = hashCode[1];
+		for(int i=0; i<numOfHashFunctions; i++) {
+			if(counters.get(hash) == 0) { return false; }
+			hash += hash2;
+		}
+		hash = hashCode[0];
+		for(int i=0; i<numOfHashFunctions; i++) {
+			counters.decrement(hash);
+			hash += hash2;
+		}
+		return true;
+	}
+
+	/**
+	 * return current probability that {@link #mightContain(element)} will erroneously return {@code true}
+     * for an element that has not actually been put in the {@link CountingBloomFilter}.
+     * @see BloomFilter#currentFpp()
+	 */
+	public double currentFpp() {
+		return Math.pow(((double)counters.nonZeroCount) / counters.size, numOfHashFunctions);
+	}
+
+	/** the fill ratio is the fraction of non-zero counters **/
+	@Override
+	public FilterStats stats() {
+		return new FilterStats(((double)counters.nonZeroCount) / counters.size, currentFpp(), 0,
+				((long)counters.words.length) << 3);
+	}
+
+	/** return the hash function of elements within this CountingBloomFilter **/
+	@Override
+	public HashFunction hashFunction() { return hashFunction; }
+
+	/**
+	 * create a {@link CountingBloomFilter CountingBloomFilter<T>} with the expected number of element and
+     * expected false positive probability, it takes 4 times of the memory of a {@link BloomFilter}.
+     * <p>elements are hashed by {@link Hashing#murmur3()}, whose seed differs between JVMs</p>
+	 * @param expectedCapacity 	expected number of elements
+	 * @param fpp	expected false positive probability
+	 * @return	a {@link CountingBloomFilter}
+	 */
+	public static <T> CountingBloomFilter<T> create(int expectedCapacity, double fpp) {
+		return create(expectedCapacity, fpp, Hashing.murmur3());
+	}
+
+	/**
+	 * create a {@link CountingBloomFilter CountingBloomFilter<T>} with the expected number of element,
+     * expected false positive probability and the hash function of elements.
+	 * @param expectedCapacity 	expected number of elements
+	 * @param fpp	expected false positive probability
+	 * @param hashFunction	hash function of elements, e.g {@link Hashing#murmur3(long)}
+	 * @return	a {@link CountingBloomFilter}
+	 */
+	public static <T> CountingBloomFilter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction) {
+		if(expectedCapacity <= 0) {
+			throw new IllegalArgumentException(String.format("expectedCapacity (%d) must be > 0", expectedCapacity));
+		}
+		if(fpp <= 0) {
+			throw new IllegalArgumentException(String.format("fpp (%f) must be > 0", fpp));
+		}
+		if(fpp >= 1) {
+			throw new IllegalArgumentException(String.format("fpp (%f) must be < 1", fpp));
+		}
+		int numOfHashFunctions = BloomFilter.optimalNumOfHashFunctions(fpp);
+		long optimalNumOfCounters = BloomFilter.optimalTotalNumOfBits(expectedCapacity, fpp);
+
+		return new CountingBloomFilter<T>(new Counters(optimalNumOfCounters), numOfHashFunctions, hashFunction);
+	}
+
+	/** 4 bits saturating counters packed into {@code long}s **/
+	private static final class Counters {
+		static final int COUNTER_BITS = 4;
+		static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+		static final long MAX_COUNT = (1L << COUNTER_BITS) - 1;
+		static final long MAX_CAPACITY = ((long)Integer.MAX_VALUE) * COUNTERS_PER_WORD;
+		final long[] words;
+		final long size;
+		long nonZeroCount;	// total number of counters > 0
+
+		Counters(long capacity) {
+			if(capacity > MAX_CAPACITY) { capacity = MAX_CAPACITY; }
+			words = new long[(int)((capacity-1) / COUNTERS_PER_WORD)+1];
+			size = ((long)words.length) * COUNTERS_PER_WORD;
+		}
+
+		/** the high 32 bits of a hash select a word, the low 4 bits select a counter within the word **/
+		private int wordIndex(long hash) { return (int) (((hash >>> 32) * words.length) >>> 32); }
+
+		private static int shift(long hash) { return ((int) hash & (COUNTERS_PER_WORD - 1)) << 2; }
+
+		long get(long hash) {
+			return (words[wordIndex(hash)] >>> shift(hash)) & MAX_COUNT;
+		}
+
+		/** increment the counter unless saturated, return {@code true} if it was 0 **/
+		boolean increment(long hash) {
+			int wordIndex = wordIndex(hash);
+			int shift = shift(hash);
+			long count = (words[wordIndex] >>> shift) & MAX_COUNT;
+			if(count == MAX_COUNT) { return false; }	// saturated
+			words[wordIndex] += 1L << shift;
+			if(count == 0) {
+				nonZeroCount++;
+				return true;
+			}
+			return false;
+		}
+
+		/** decrement the counter unless saturated or 0 **/
+		void decrement(long hash) {
+			int wordIndex = wordIndex(hash);
+			int shift = shift(hash);
+			long count = (words[wordIndex] >>> shift) & MAX_COUNT;
+			if(count == 0 || count == MAX_COUNT) { return; }	// saturated, the real count is unknown
+			words[wordIndex] -= 1L << shift;
+			if(count == 1) { nonZeroCount--; }
+		}
+	}
+}
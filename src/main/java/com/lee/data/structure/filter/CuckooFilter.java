@@ -1,18 +1,29 @@
 package com.lee.data.structure.filter;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Random;
 
 import com.lee.data.structure.util.HashCode;
+import com.lee.data.structure.util.HashAlgorithm;
+import com.lee.data.structure.util.HashFunction;
 import com.lee.data.structure.util.Hashing;
 
 /**
  * see more detail of <a href="http://www.cs.cmu.edu/~binfan/papers/conext14_cuckoofilter.pdf">Cuckoo Filter</a>
+ * <p>the lookups of a filter no longer put or removed from can run concurrently, a put or a remove must
+ * not run with any other operation, see {@link ConcurrentCuckooFilter} for that.</p>
  * @NotThreadSafe
  **/
-public final class CuckooFilter<T> {
+public final class CuckooFilter<T> extends AbstractFilter<T> {
 	
 	/** a single insertion relocation times before finding an empty entry **/
-	private static final int MAX_KICK_OUT_TIMES = 500;
+	static final int MAX_KICK_OUT_TIMES = 500;
+	
+	/** the max number of relocations of a breadth-first cuckoo path **/
+	static final int MAX_PATH_LENGTH = 5;
 	
 	/** a random instance use to select kick out bucket **/
 	private final Random rand = new Random();
@@ -20,13 +31,29 @@ public final class CuckooFilter<T> {
 	/** the buckets for CuckooFilter **/
 	private final Buckets buckets;
 	
+	/** the {@link #buckets} of fingerprints within 64 bits, null for a larger fingerprint **/
+	private final LongBuckets longBuckets;
+	
+	/** the {@link #buckets} of fingerprints larger than 64 bits, null otherwise **/
+	private final LargeFingerprintBuckets largeBuckets;
+	
 	/** number of elements in this CuckooFilter **/
 	private int numOfExistedElements;
 	
 	/** the number of kick out elements after {@link #MAX_KICK_OUT_TIMES} relocation times **/
 	private int numOfKickoutElements;
 	
-	private CuckooFilter(int numOfBuckets, int numOfEntries, int fingerprintLength) {
+	/** hash function of elements **/
+	private final HashFunction hashFunction;
+	
+	/** per thread (fingerprintLength + 32) bits hash code of a fingerprint larger than 64 bits, null otherwise **/
+	private final ThreadLocal<HashCode> largeHashCode;
+	
+	/** reused queue of the breadth-first search, null if kick out by random walk, see {@link #searchPath(long, int, int)} **/
+	private final PathQueue pathQueue;
+	
+	private CuckooFilter(int numOfBuckets, int numOfEntries, int fingerprintLength, boolean semiSorted, boolean breadthFirst,
+			HashFunction hashFunction) {
 		if(numOfBuckets <= 0) {
 			throw new IllegalArgumentException(String.format("numOfBuckets (%d) must be > 0", numOfBuckets));
 		}
@@ -36,30 +63,116 @@ public final class CuckooFilter<T> {
 		if(fingerprintLength <= 0) {
 			throw new IllegalArgumentException(String.format("fingerprintLength (%d) must be > 0", fingerprintLength));
 		}
-		this.buckets = Buckets.create(numOfBuckets, numOfEntries, fingerprintLength);
+		if(hashFunction == null) {
+			throw new NullPointerException("hash function is null");
+		}
+		this.buckets = Buckets.create(numOfBuckets, numOfEntries, fingerprintLength, semiSorted);
+		this.longBuckets = buckets instanceof LongBuckets ? (LongBuckets) buckets : null;
+		this.largeBuckets = buckets instanceof LargeFingerprintBuckets ? (LargeFingerprintBuckets) buckets : null;
+		this.pathQueue = breadthFirst && fingerprintLength <= Long.SIZE ? new PathQueue(numOfEntries) : null;
+		this.largeHashCode = fingerprintLength > Long.SIZE ? largeHashCode(fingerprintLength + Integer.SIZE) : null;
+		this.hashFunction = hashFunction;
+	}
+	
+	private static ThreadLocal<HashCode> largeHashCode(final int numOfHashBits) {
+		return new ThreadLocal<HashCode>() {
+			@Override
+			protected HashCode initialValue() { return HashCode.allocate(numOfHashBits); }
+		};
 	}
 	
 	/**
 	 * put an element into this {@link CuckooFilter}, ensure that subsequent invocations of
      * {@link #mightContain(element)} with the same element will always return {@code true}.
      * <p>note that this operation always ensure that {@code element} was put successful into
-     * this {@link CuckooFilter}, so the return <code>boolean</code> value just represents
-     * whether an existed elements kick out after {@link #MAX_KICK_OUT_TIMES} relocation times or not</p> 
-	 * @return true if an existed elements kick out of cuckoo filter after {@link #MAX_KICK_OUT_TIMES}
-	 * 			relocation times, otherwise false
+     * this {@link CuckooFilter}, though an existed element might be kicked out after
+     * {@link #MAX_KICK_OUT_TIMES} relocation times, see {@link #numOfKickoutElements()}.</p>
+     * <p>a filter {@link #createBreadthFirst(int, double) searching breadth-first} never kicks out an
+     * existed element, it returns false and leaves the filter unchanged if {@code element} can't be put
+     * within {@link #MAX_PATH_LENGTH} relocations.</p>
+	 * @return true if {@code element} is put, false only if it is rejected by a breadth-first search
 	 */
+	@Override
 	public boolean put(T element) {
+		if(buckets.fingerprintLength <= Long.SIZE) {
+			long[] hashCode = threadHashCode();
+			hashFunction.hash128(element, hashCode);
+			return put(hashCode[0], hashCode[1]);
+		}
 		int fingerprintLength = buckets.fingerprintLength;
-		byte[] fingerprint = flipIfAllZero(Hashing.hash(element, fingerprintLength).asBytes(), fingerprintLength);
-		int index = Hashing.hash(element, 32).asInt();
-		int alternate = index ^ hashFingerprint(fingerprint, fingerprintLength);
-		if(tryPut(fingerprintLength, fingerprint, index, alternate)) {
+		HashCode sink = largeHashCode.get();
+		byte[] fingerprint = largeFingerprintOf(element, sink);
+		int index = primaryIndex(sink);
+		int alternate = alternate(index, hashFingerprint(fingerprint, fingerprintLength));
+		if(largeBuckets.put(fingerprint, index) || largeBuckets.put(fingerprint, alternate)) {
 			numOfExistedElements++;
-			return false;
+			return true;
 		}
 		boolean hasBeenKickout = kickout(fingerprintLength, fingerprint, rand.nextBoolean() ? index : alternate);
 		if(hasBeenKickout) { numOfKickoutElements++; }else { numOfExistedElements++; }
-		return hasBeenKickout;
+		return true;
+	}
+	
+	/**
+	 * same as {@link #put(Object)}, for an element hashed to {@code hash1, hash2} by {@link #hashFunction()},
+	 * so that filters sharing the hash function hash an element once. a fingerprint within 64 bits only.
+	 */
+	boolean put(long hash1, long hash2) {
+		long fingerprint = smallFingerprintOf(hash1);
+		int index = primaryIndex(hash2);
+		int alternate = alternate(index, hashFingerprint(fingerprint));
+		if(longBuckets.put(fingerprint, index) || longBuckets.put(fingerprint, alternate)) {
+			numOfExistedElements++;
+			return true;
+		}
+		boolean hasBeenKickout = pathQueue != null ? !putAlongPath(fingerprint, index, alternate)
+				: kickout(fingerprint, rand.nextBoolean() ? index : alternate);
+		if(hasBeenKickout) { numOfKickoutElements++; }else { numOfExistedElements++; }
+		return !hasBeenKickout || pathQueue == null;	// a rejected element leaves the filter unchanged
+	}
+	
+	/*
+	 * hash an element once, a fingerprint within 64 bits takes the first half of a 128 bits hash code,
+	 * the primary index the second half. a larger fingerprint takes the first fingerprintLength bits of
+	 * a (fingerprintLength + 32) bits hash code, the primary index the last 32 bits.
+	 */
+	
+	/** return the non-zero fingerprint within 64 bits of the element hashed to {@code hash1}, no allocation **/
+	private long smallFingerprintOf(long hash1) {
+		long fingerprint = hash1 & (Buckets.SEGMENT_MASK >>> (-buckets.fingerprintLength));
+		return fingerprint == 0 ? 1 : fingerprint;		// 0 represents an empty entry
+	}
+	
+	/**
+	 * return the non-zero fingerprint of {@code element} larger than 64 bits, it is the reused bytes of
+	 * {@code sink}, valid until the next element is hashed into it. a kick out swaps it in place.
+	 */
+	private byte[] largeFingerprintOf(T element, HashCode sink) {
+		hashFunction.hash(element, sink);
+		return flipIfAllZero(sink.asBytes(), buckets.fingerprintLength);
+	}
+	
+	/** return the primary bucket index of the element just hashed into {@code sink} by {@link #largeFingerprintOf(Object, HashCode)} **/
+	private int primaryIndex(HashCode sink) {
+		return primaryIndex(HashCode.asIntFrom(sink.asBytes(), buckets.fingerprintLength));
+	}
+	
+	/** return the primary bucket index of the element hashed to {@code hash2} **/
+	private int primaryIndex(long hash2) {
+		return (int) (((hash2 & 0xffffffffL) * buckets.numOfBuckets) >>> 32);	// map to [0, numOfBuckets) without %
+	}
+	
+	/**
+	 * return the alternate bucket index of a fingerprint in the bucket {@code index}.
+	 * <p>{@code (fingerprintHash - index) mod numOfBuckets} is its own inverse, so the alternate
+	 * of the alternate is the primary again, whatever the number of buckets is.</p>
+	 */
+	private int alternate(int index, int fingerprintHash) {
+		return alternate(index, fingerprintHash, buckets.numOfBuckets);
+	}
+	
+	static int alternate(int index, int fingerprintHash, int numOfBuckets) {
+		return (int) Math.floorMod((fingerprintHash & 0xffffffffL) - index, (long) numOfBuckets);
 	}
 	
 	private static byte[] flipIfAllZero(byte[] fingerprint, int fingerprintLength) {
@@ -81,35 +194,27 @@ public final class CuckooFilter<T> {
 	
 	private static byte[] flipToOne(byte[] fingerprint) { fingerprint[0] = 1; return fingerprint; }
 	
+	/** fold the fingerprint into 64 bits, then mix them by {@link #hashFingerprint(long)}, no allocation **/
 	private static int hashFingerprint(byte[] fingerprint, int fingerprintLength) {
-		int h = 0;
-		int size = (fingerprintLength - 1) / 32 + 1;
-		switch(size) {
-		case 0: break;
-		case 1:
-			int intVal = HashCode.asInt(fingerprint) & (0xffffffff >>> (32-fingerprintLength));
-			/*
-			 * MurmurHash3 was written by Austin Appleby, and is placed in the public domain. The author
-			 * hereby disclaims copyright to this source code.
-			 */
-			h = 0x1b873593 * Integer.rotateLeft(intVal * 0xcc9e2d51, 15);
-			break;
-		default:
-			int index = 0;
-			for(int i=1; i<size; i++) {
-				h ^= HashCode.asInt(fingerprint, index);
-				index += 4;
-				fingerprintLength -= 32;
-			}
-			h ^= (HashCode.asInt(fingerprint, index) & (0xffffffff >>> (32-fingerprintLength)));
-		}
-		return h == 0 ? 0xffffffff : h;		// index ^ h = index if h=0; index ^ h = ~index if h=0xffffffff
-	}
-	
-	/** try to put fingerprint into primary or alternate bucket, fail if they all have no empty entry */
-	private boolean tryPut(int fingerprintLength, byte[] fingerprint, int index, int alternate) {
-		return buckets.put(fingerprint, index)
-			|| buckets.put(fingerprint, alternate);
+		long h = 0;
+		for(int bitIndex=0; bitIndex<fingerprintLength; bitIndex+=Long.SIZE) {
+			long f = HashCode.asLongFrom(fingerprint, bitIndex);
+			int len = fingerprintLength - bitIndex;
+			if(len < Long.SIZE) { f &= Buckets.SEGMENT_MASK >>> (-len); }
+			h = Long.rotateLeft(h, 31) ^ f;
+		}
+		return hashFingerprint(h);
+	}
+	
+	/** the murmur3 64 bits finalizer, every input bit affects every output bit **/
+	static int hashFingerprint(long fingerprint) {
+		long h = fingerprint;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int) h;
 	}
 	
 	/**
@@ -119,13 +224,79 @@ public final class CuckooFilter<T> {
 	 * @return	true if an existed elements kick out of cuckoo filter after {@link #MAX_KICK_OUT_TIMES}
 	 * 			relocation times, otherwise false
 	 */
+	private boolean kickout(long fingerprint, int index) {
+		int i = 0;
+		do {
+			fingerprint = longBuckets.putOrReplace(fingerprint, index);
+			if(fingerprint == 0) { break; }
+			i++;
+			index = alternate(index, hashFingerprint(fingerprint));
+		}while(i < MAX_KICK_OUT_TIMES);
+		return i == MAX_KICK_OUT_TIMES;
+	}
+	
+	/**
+	 * search the shortest cuckoo path from bucket {@code index} or {@code alternate} to an empty entry,
+	 * then move the fingerprints along it backwards and put {@code fingerprint} into the freed entry.
+	 * nothing is moved if no path is found, so it takes at most {@link #MAX_PATH_LENGTH} + 1 writes.
+	 * @return	true if {@code fingerprint} has been put, otherwise false and the filter is unchanged
+	 */
+	private boolean putAlongPath(long fingerprint, int index, int alternate) {
+		PathQueue q = pathQueue;
+		int node = searchPath(index, alternate);
+		if(node < 0) { return false; }
+		int from = q.buckets[node], entry = q.lastEntry, to = q.lastBucket;
+		for(;;) {	// from the deepest bucket back to a root, every bucket on the path is changed once it is read
+			longBuckets.put(longBuckets.removeAt(from, entry), to);
+			if(q.parents[node] < 0) { break; }
+			to = from;
+			entry = q.entries[node];
+			node = q.parents[node];
+			from = q.buckets[node];
+		}
+		return longBuckets.put(fingerprint, from);
+	}
+	
+	/**
+	 * breadth-first search from both buckets of a fingerprint. a node is a full bucket, its children are
+	 * the alternate buckets of the fingerprints in it, until a child has an empty entry.
+	 * @return	the deepest node of the path, or -1 if no path within {@link #MAX_PATH_LENGTH} relocations
+	 */
+	private int searchPath(int index, int alternate) {
+		PathQueue q = pathQueue;
+		int numOfEntries = buckets.numOfEntries;
+		int head = 0, tail = 0;
+		tail = q.offer(tail, index, -1, -1, 0);
+		tail = q.offer(tail, alternate, -1, -1, 0);
+		for(; head < tail; head++) {
+			int bucket = q.buckets[head], depth = q.depths[head];
+			int first = rand.nextInt(numOfEntries);		// don't always move the first entries
+			for(int e=0; e<numOfEntries; e++) {
+				int entry = first + e < numOfEntries ? first + e : first + e - numOfEntries;
+				long fingerprint = longBuckets.fingerprintAt(bucket, entry);
+				int child = alternate(bucket, hashFingerprint(fingerprint));
+				if(!longBuckets.isFull(child)) {
+					q.lastEntry = entry;
+					q.lastBucket = child;
+					return head;
+				}
+				// a full bucket on the path already makes a cycle, moving along it breaks the path
+				if(depth + 1 < MAX_PATH_LENGTH && tail < q.capacity && !q.onPath(head, child)) {
+					tail = q.offer(tail, child, head, entry, depth + 1);
+				}
+			}
+		}
+		return -1;
+	}
+	
+	/** same as {@link #kickout(long, int)}, for a fingerprint larger than 64 bits **/
 	private boolean kickout(int fingerprintLength, byte[] fingerprint, int index) {
 		int i = 0;
 		do {
-			fingerprint = buckets.putOrReplace(fingerprint, index);
+			fingerprint = largeBuckets.putOrReplace(fingerprint, index);
 			if(fingerprint == null) { break; }
 			i++;
-			index = index ^ hashFingerprint(fingerprint, fingerprintLength);
+			index = alternate(index, hashFingerprint(fingerprint, fingerprintLength));
 		}while(i < MAX_KICK_OUT_TIMES);
 		return i == MAX_KICK_OUT_TIMES;
 	}
@@ -134,18 +305,27 @@ public final class CuckooFilter<T> {
 	 * return {@code true} if the element <i>might</i> have been put in this Cuckoo filter,
      * {@code false} if this is <i>definitely</i> not the case.
 	 */
+	@Override
 	public boolean mightContain(T element) {
+		if(buckets.fingerprintLength <= Long.SIZE) {
+			long[] hashCode = threadHashCode();
+			hashFunction.hash128(element, hashCode);
+			return mightContain(hashCode[0], hashCode[1]);
+		}
 		int fingerprintLength = buckets.fingerprintLength;
-		byte[] fingerprint = flipIfAllZero(Hashing.hash(element, fingerprintLength).asBytes(), fingerprintLength);
-		int index = Hashing.hash(element, 32).asInt();
-		int alternate = index ^ hashFingerprint(fingerprint, fingerprintLength);
-		return contain(fingerprintLength, fingerprint, index, alternate);
+		HashCode sink = largeHashCode.get();
+		byte[] fingerprint = largeFingerprintOf(element, sink);
+		int index = primaryIndex(sink);
+		return largeBuckets.contain(fingerprint, index)
+			|| largeBuckets.contain(fingerprint, alternate(index, hashFingerprint(fingerprint, fingerprintLength)));
 	}
 	
-	/** whether the {@code fingerprint} exists in primary and alternate bucket or not */
-	private boolean contain(int fingerprintLength, byte[] fingerprint, int index, int alternate) {
-		return (buckets.contain(fingerprint, index)
-			 || buckets.contain(fingerprint, alternate));
+	/** same as {@link #mightContain(Object)}, for an element hashed by {@link #hashFunction()}, see {@link #put(long, long)} **/
+	boolean mightContain(long hash1, long hash2) {
+		long fingerprint = smallFingerprintOf(hash1);
+		int index = primaryIndex(hash2);
+		return longBuckets.contain(fingerprint, index)
+			|| longBuckets.contain(fingerprint, alternate(index, hashFingerprint(fingerprint)));
 	}
 	
 	/**
@@ -157,17 +337,27 @@ public final class CuckooFilter<T> {
 	 * with the same element might return {@code true}.</p>
 	 */
 	public boolean remove(T element) {
+		if(buckets.fingerprintLength <= Long.SIZE) {
+			long[] hashCode = threadHashCode();
+			hashFunction.hash128(element, hashCode);
+			return remove(hashCode[0], hashCode[1]);
+		}
 		int fingerprintLength = buckets.fingerprintLength;
-		byte[] fingerprint = flipIfAllZero(Hashing.hash(element, fingerprintLength).asBytes(), fingerprintLength);
-		int index = Hashing.hash(element, 32).asInt();
-		int alternate = index ^ hashFingerprint(fingerprint, fingerprintLength);
-		return remove(fingerprintLength, fingerprint, index, alternate);
+		HashCode sink = largeHashCode.get();
+		byte[] fingerprint = largeFingerprintOf(element, sink);
+		int index = primaryIndex(sink);
+		boolean hasBeenRemoved = largeBuckets.remove(fingerprint, index)
+			|| largeBuckets.remove(fingerprint, alternate(index, hashFingerprint(fingerprint, fingerprintLength)));
+		if(hasBeenRemoved) { numOfExistedElements--; }
+		return hasBeenRemoved;
 	}
 	
-	/** remove the {@code fingerprint} if it exists in primary and alternate bucket, return true if removed, otherwise false  */
-	private boolean remove(int fingerprintLength, byte[] fingerprint, int index, int alternate) {
-		boolean hasBeenRemoved = (buckets.remove(fingerprint, index)
-		      || buckets.remove(fingerprint, alternate));
+	/** same as {@link #remove(Object)}, for an element hashed by {@link #hashFunction()}, see {@link #put(long, long)} **/
+	boolean remove(long hash1, long hash2) {
+		long fingerprint = smallFingerprintOf(hash1);
+		int index = primaryIndex(hash2);
+		boolean hasBeenRemoved = longBuckets.remove(fingerprint, index)
+			|| longBuckets.remove(fingerprint, alternate(index, hashFingerprint(fingerprint)));
 		if(hasBeenRemoved) { numOfExistedElements--; }
 		return hasBeenRemoved;
 	}
@@ -187,29 +377,223 @@ public final class CuckooFilter<T> {
 	/** return the length of finger print within this CuckooFilter **/
 	public int fingerprintLength() { return buckets.fingerprintLength; }
 	
+	/** the fill ratio is the fraction of occupied entries **/
+	@Override
+	public FilterStats stats() {
+		double load = ((double)numOfExistedElements) / ((long)buckets.numOfBuckets * buckets.numOfEntries);
+		return new FilterStats(load, currentFpp(load, buckets.numOfEntries, buckets.fingerprintLength),
+				numOfKickoutElements, ((long)buckets.bits.length) << 3);
+	}
+	
+	/**
+	 * return the probability that a lookup erroneously matches any of the {@code 2 * numOfEntries * load}
+	 * occupied entries of its 2 buckets, {@code 1 - (1 - 2^-f)^(2b * load)}, f is the fingerprint length.
+	 */
+	static double currentFpp(double load, int numOfEntries, int fingerprintLength) {
+		return -Math.expm1(2 * numOfEntries * load * Math.log1p(-Math.scalb(1.0, -fingerprintLength)));
+	}
+	
+	/** return the hash function of elements within this CuckooFilter **/
+	@Override
+	public HashFunction hashFunction() { return hashFunction; }
+	
+	/*
+	 * format of a written cuckoo filter, all in little-endian order
+	 * 0	int		magic number, {@link #STREAM_MAGIC}
+	 * 4	int		format version, {@link #STREAM_VERSION}
+	 * 8	int		flags, bit 0 set for semi-sorted buckets, bit 1 for a breadth-first search
+	 * 12	int		number of buckets
+	 * 16	int		number of entries per bucket
+	 * 20	int		length of fingerprint in bits
+	 * 24	long	seed of the hash function
+	 * 32	int		number of existed elements
+	 * 36	int		number of kick out elements
+	 * 40	int		number of 64 bits words
+	 * 44	int		id of the hash algorithm, {@link HashAlgorithm#id()}
+	 * 48	-		reserved up to {@link #STREAM_HEADER_SIZE}
+	 * 64	long[]	the words of the buckets
+	 */
+	
+	private static final int STREAM_MAGIC = 0x43554b4f;	// "CUKO"
+	private static final int STREAM_VERSION = 1;
+	private static final int STREAM_HEADER_SIZE = 64;
+	private static final int FLAG_SEMI_SORTED = 1;
+	private static final int FLAG_BREADTH_FIRST = 2;
+	
+	/**
+	 * write this {@link CuckooFilter} into {@code channel}, it can be read back by {@link #readFrom(ReadableByteChannel)},
+	 * even in another process. the words are copied in bulk through a direct buffer, {@code channel} is left open.
+	 * @throws IOException	if an I/O error occurs
+	 */
+	public void writeTo(WritableByteChannel channel) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocateDirect(BloomFilter.TRANSFER_BUFFER_SIZE).order(BloomFilter.FILE_BYTE_ORDER);
+		int flags = (buckets instanceof SemiSortedBuckets ? FLAG_SEMI_SORTED : 0) | (pathQueue != null ? FLAG_BREADTH_FIRST : 0);
+		buf.putInt(STREAM_MAGIC).putInt(STREAM_VERSION).putInt(flags);
+		buf.putInt(buckets.numOfBuckets).putInt(buckets.numOfEntries).putInt(buckets.fingerprintLength);
+		buf.putLong(hashFunction.seed()).putInt(numOfExistedElements).putInt(numOfKickoutElements).putInt(buckets.bits.length);
+		buf.putInt(hashFunction.algorithm().id());
+		while(buf.position() < STREAM_HEADER_SIZE) { buf.put((byte) 0); }
+		BloomFilter.write(channel, buf);
+		BloomFilter.writeWords(channel, buf, buckets.bits);
+	}
+	
+	/**
+	 * read a {@link CuckooFilter} written by {@link #writeTo(WritableByteChannel)} from {@code channel}.
+	 * <p>exactly the bytes of the filter are consumed, so more data can follow it in the channel.</p>
+	 * @throws IOException	if an I/O error occurs or the data isn't a written cuckoo filter
+	 */
+	public static <T> CuckooFilter<T> readFrom(ReadableByteChannel channel) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocateDirect(BloomFilter.TRANSFER_BUFFER_SIZE).order(BloomFilter.FILE_BYTE_ORDER);
+		buf.limit(STREAM_HEADER_SIZE);
+		BloomFilter.readFully(channel, buf);
+		buf.flip();
+		if(buf.getInt() != STREAM_MAGIC) {
+			throw new IOException("channel isn't a cuckoo filter, bad magic number");
+		}
+		int version = buf.getInt();
+		if(version != STREAM_VERSION) {
+			throw new IOException(String.format("unsupported cuckoo filter version (%d)", version));
+		}
+		int flags = buf.getInt();
+		int numOfBuckets = buf.getInt(), numOfEntries = buf.getInt(), fingerprintLength = buf.getInt();
+		long seed = buf.getLong();
+		int numOfExistedElements = buf.getInt(), numOfKickoutElements = buf.getInt(), numOfWords = buf.getInt();
+		int algorithmId = buf.getInt();
+		CuckooFilter<T> filter;
+		try {
+			filter = new CuckooFilter<T>(numOfBuckets, numOfEntries, fingerprintLength, (flags & FLAG_SEMI_SORTED) != 0,
+					(flags & FLAG_BREADTH_FIRST) != 0, HashAlgorithm.ofId(algorithmId).withSeed(seed));
+		}catch(IllegalArgumentException e) {
+			throw new IOException("corrupted cuckoo filter, "+e.getMessage(), e);
+		}
+		if(numOfWords != filter.buckets.bits.length) {
+			throw new IOException(String.format("corrupted cuckoo filter, numOfWords (%d) must be %d",
+					numOfWords, filter.buckets.bits.length));
+		}
+		BloomFilter.readWords(channel, buf, filter.buckets.bits);
+		filter.numOfExistedElements = numOfExistedElements;
+		filter.numOfKickoutElements = numOfKickoutElements;
+		return filter;
+	}
+	
 	/**
 	 * create a {@link BloomFilter BloomFilter<T>} with the expected number of element and
      * expected false positive probability.
      * <p>note that the saturation of {@link BloomFilter} with significantly more elements
      * than expected, will result in a sharp degeneration of its false positive probability</p>
+     * <p>elements are hashed by {@link Hashing#murmur3()}, whose seed differs between JVMs</p>
 	 * @param expectedCapacity 	expected number of elements
 	 * @param fpp	expected false positive probability
 	 * @return	a {@link BloomFilter}
 	 */
 	public static <T> CuckooFilter<T> create(int expectedCapacity, double fpp) {
+		return create(expectedCapacity, fpp, Hashing.murmur3());
+	}
+	
+	/**
+	 * create a {@link CuckooFilter CuckooFilter<T>} with the expected number of element,
+     * expected false positive probability and the hash function of elements.
+     * <p>two filters with the same parameters and {@link HashFunction#seed() seed} store the
+     * same fingerprints in the same buckets, even if they are built in different JVMs</p>
+	 * @param expectedCapacity 	expected number of elements
+	 * @param fpp	expected false positive probability
+	 * @param hashFunction	hash function of elements, e.g {@link Hashing#murmur3(long)}
+	 * @return	a {@link CuckooFilter}
+	 */
+	public static <T> CuckooFilter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction) {
+		if(expectedCapacity <= 0) {
+			throw new IllegalArgumentException(String.format("expectedCapacity (%d) must be > 0", expectedCapacity));
+		}
+		if(fpp <= 0) {
+			throw new IllegalArgumentException(String.format("fpp (%f) must be > 0", fpp));
+		}
+		if(fpp >= 1) {
+			throw new IllegalArgumentException(String.format("fpp (%f) must be < 1", fpp));
+		}
+		
+		int fingerprintLength = optimalFingerprintLength(EMPIRICAL_BUCKET_SIZE, fpp);
+		int numOfBuckets = numOfBuckets(expectedCapacity, EMPIRICAL_BUCKET_SIZE);
+		return new CuckooFilter<T>(numOfBuckets, EMPIRICAL_BUCKET_SIZE, fingerprintLength, false, false, hashFunction);
+	}
+	
+	/**
+	 * create a {@link CuckooFilter CuckooFilter<T>} which searches a breadth-first cuckoo path before
+	 * moving anything, instead of a random walk of up to {@link #MAX_KICK_OUT_TIMES} relocations.
+	 * <p>the path is at most {@link #MAX_PATH_LENGTH} relocations, so a put takes a few writes even
+	 * near full load, and no existed element is ever kicked out, see {@link #put(Object)}. it reaches
+	 * about the same load factor as a random walk, see "Algorithmic Improvements for Fast Concurrent
+	 * Cuckoo Hashing", Li et al, 2014.</p>
+	 * <p>a fingerprint longer than 64 bits (fpp below about 2^-61) still kicks out by random walk.</p>
+	 * <p>elements are hashed by {@link Hashing#murmur3()}, whose seed differs between JVMs</p>
+	 * @param expectedCapacity 	expected number of elements
+	 * @param fpp	expected false positive probability
+	 * @return	a {@link CuckooFilter}
+	 */
+	public static <T> CuckooFilter<T> createBreadthFirst(int expectedCapacity, double fpp) {
+		return createBreadthFirst(expectedCapacity, fpp, Hashing.murmur3());
+	}
+	
+	/**
+	 * create a {@link CuckooFilter CuckooFilter<T>} which searches a breadth-first cuckoo path before
+	 * moving anything, with the hash function of elements.
+	 * @param expectedCapacity 	expected number of elements
+	 * @param fpp	expected false positive probability
+	 * @param hashFunction	hash function of elements, e.g {@link Hashing#murmur3(long)}
+	 * @return	a {@link CuckooFilter}
+	 * @see #createBreadthFirst(int, double)
+	 */
+	public static <T> CuckooFilter<T> createBreadthFirst(int expectedCapacity, double fpp, HashFunction hashFunction) {
 		if(expectedCapacity <= 0) {
 			throw new IllegalArgumentException(String.format("expectedCapacity (%d) must be > 0", expectedCapacity));
 		}
 		if(fpp <= 0) {
-			throw new IllegalArgumentException(String.format("fpp (%d) must be > 0", fpp));
+			throw new IllegalArgumentException(String.format("fpp (%f) must be > 0", fpp));
 		}
 		if(fpp >= 1) {
-			throw new IllegalArgumentException(String.format("fpp (%d) must be < 1", fpp));
+			throw new IllegalArgumentException(String.format("fpp (%f) must be < 1", fpp));
 		}
 		
 		int fingerprintLength = optimalFingerprintLength(EMPIRICAL_BUCKET_SIZE, fpp);
 		int numOfBuckets = numOfBuckets(expectedCapacity, EMPIRICAL_BUCKET_SIZE);
-		return new CuckooFilter<T>(numOfBuckets, EMPIRICAL_BUCKET_SIZE, fingerprintLength);
+		return new CuckooFilter<T>(numOfBuckets, EMPIRICAL_BUCKET_SIZE, fingerprintLength, false, true, hashFunction);
+	}
+	
+	/**
+	 * create a {@link CuckooFilter CuckooFilter<T>} of semi-sorted buckets, it takes one bit less per entry
+	 * at the cost of decoding a bucket for every operation, e.g. 36 instead of 40 bits per bucket at fpp 1%.
+	 * <p>the fingerprints are the same as {@link #create(int, double)}, so as the false positive probability.</p>
+	 * <p>elements are hashed by {@link Hashing#murmur3()}, whose seed differs between JVMs</p>
+	 * @param expectedCapacity 	expected number of elements
+	 * @param fpp	expected false positive probability, must be < 0.5 and takes a fingerprint within 64 bits
+	 * @return	a {@link CuckooFilter}
+	 */
+	public static <T> CuckooFilter<T> createSemiSorted(int expectedCapacity, double fpp) {
+		return createSemiSorted(expectedCapacity, fpp, Hashing.murmur3());
+	}
+	
+	/**
+	 * create a {@link CuckooFilter CuckooFilter<T>} of semi-sorted buckets with the hash function of elements.
+	 * @param expectedCapacity 	expected number of elements
+	 * @param fpp	expected false positive probability, must be < 0.5 and takes a fingerprint within 64 bits
+	 * @param hashFunction	hash function of elements, e.g {@link Hashing#murmur3(long)}
+	 * @return	a {@link CuckooFilter}
+	 * @throws IllegalArgumentException	if {@code fpp} takes a fingerprint not longer than 4 bits or longer than 64 bits
+	 * @see #createSemiSorted(int, double)
+	 */
+	public static <T> CuckooFilter<T> createSemiSorted(int expectedCapacity, double fpp, HashFunction hashFunction) {
+		if(expectedCapacity <= 0) {
+			throw new IllegalArgumentException(String.format("expectedCapacity (%d) must be > 0", expectedCapacity));
+		}
+		if(fpp <= 0) {
+			throw new IllegalArgumentException(String.format("fpp (%f) must be > 0", fpp));
+		}
+		if(fpp >= 1) {
+			throw new IllegalArgumentException(String.format("fpp (%f) must be < 1", fpp));
+		}
+		
+		int fingerprintLength = optimalFingerprintLength(EMPIRICAL_BUCKET_SIZE, fpp);
+		int numOfBuckets = numOfBuckets(expectedCapacity, EMPIRICAL_BUCKET_SIZE);
+		return new CuckooFilter<T>(numOfBuckets, EMPIRICAL_BUCKET_SIZE, fingerprintLength, true, false, hashFunction);
 	}
 	
 	/*
@@ -240,12 +624,12 @@ public final class CuckooFilter<T> {
 	 * more detail of empirical evaluation and derivation process see http://www.cs.cmu.edu/~binfan/papers/conext14_cuckoofilter.pdf
 	 */
 	
-	private static final int EMPIRICAL_BUCKET_SIZE = 4;
+	static final int EMPIRICAL_BUCKET_SIZE = 4;
 	
 	/** compute the f (fingerprint length in bits), given the empirical number of entries in bucket and expected
 	 * false positive probability
 	 */
-	private static final int optimalFingerprintLength(int b, double p) {
+	static final int optimalFingerprintLength(int b, double p) {
 		return (int) Math.ceil(1 + Math.log(b / p) / Math.log(2));
 	}
 	
@@ -253,10 +637,59 @@ public final class CuckooFilter<T> {
 	 * compute the m (number of buckets), given the number of elements and the empirical number of entries in bucket
 	 * <p>note that to ensure the kick out strategy the minimum number of buckets must be 2</p>
 	 */
-	private static final int numOfBuckets(int n, float b) {
+	static final int numOfBuckets(int n, float b) {
 		return Math.max(2, (int)Math.ceil(n / b));
 	}
 	
+	/**
+	 * the queue of a breadth-first search, a node is a full bucket reached by relocating a fingerprint
+	 * of its parent. nodes are never dequeued, a found path is read back through the parents.
+	 */
+	private static final class PathQueue {
+		/** max number of nodes, both trees of two roots up to {@link #MAX_PATH_LENGTH} - 1 depth **/
+		final int capacity;
+		/** bucket index of a node **/
+		final int[] buckets;
+		/** parent node of a node, -1 if root **/
+		final int[] parents;
+		/** entry index in the parent bucket whose fingerprint relocates to a node **/
+		final int[] entries;
+		/** number of relocations from a root to a node **/
+		final int[] depths;
+		/** the last relocation of a found path, from {@code lastEntry} of the deepest node to {@code lastBucket} **/
+		int lastEntry, lastBucket;
+		
+		PathQueue(int numOfEntries) {
+			long capacity = 0, numOfNodes = 2;
+			for(int depth=0; depth<MAX_PATH_LENGTH; depth++) {
+				capacity += numOfNodes;
+				numOfNodes *= numOfEntries;
+			}
+			this.capacity = (int) Math.min(capacity, 1 << 12);
+			this.buckets = new int[this.capacity];
+			this.parents = new int[this.capacity];
+			this.entries = new int[this.capacity];
+			this.depths = new int[this.capacity];
+		}
+		
+		/** append a node at {@code tail}, return the new tail **/
+		int offer(int tail, int bucket, int parent, int entry, int depth) {
+			buckets[tail] = bucket;
+			parents[tail] = parent;
+			entries[tail] = entry;
+			depths[tail] = depth;
+			return tail + 1;
+		}
+		
+		/** return true if {@code bucket} is {@code node} or one of its ancestors **/
+		boolean onPath(int node, int bucket) {
+			for(; node >= 0; node = parents[node]) {
+				if(buckets[node] == bucket) { return true; }
+			}
+			return false;
+		}
+	}
+	
 	private static abstract class Buckets {
 		
 		/** a random instance use to select kick out entry **/
@@ -276,11 +709,22 @@ public final class CuckooFilter<T> {
 		/** bit length of per bucket **/
 		protected final int bitLengthOfBucket;
 		
-		static Buckets create(int numOfBuckets, int numOfEntries, int fingerprintLength) {
+		static Buckets create(int numOfBuckets, int numOfEntries, int fingerprintLength, boolean semiSorted) {
 			if(exceedCapacity(numOfBuckets, numOfEntries, fingerprintLength)) {
 				throw new IllegalArgumentException(String.format("too larger numOfBuckets (%d) or numOfEntries (%d) or fingerprintLength (%d)",
 						numOfBuckets, numOfEntries, fingerprintLength));
 			}
+			if(semiSorted) {
+				if(numOfEntries != SemiSortedBuckets.NUM_OF_ENTRIES) {
+					throw new IllegalArgumentException(String.format("numOfEntries (%d) must be %d for semi-sorted buckets",
+							numOfEntries, SemiSortedBuckets.NUM_OF_ENTRIES));
+				}
+				if(fingerprintLength <= SemiSortedBuckets.PREFIX_LENGTH || fingerprintLength > 64) {
+					throw new IllegalArgumentException(String.format("fingerprintLength (%d) must be > %d and <= 64 for semi-sorted buckets",
+							fingerprintLength, SemiSortedBuckets.PREFIX_LENGTH));
+				}
+				return new SemiSortedBuckets(numOfBuckets, fingerprintLength);
+			}
 			return fingerprintLength <= 64 ? new SmallFingerprintBuckets(numOfBuckets, numOfEntries, fingerprintLength) :
 				new LargeFingerprintBuckets(numOfBuckets, numOfEntries, fingerprintLength);
 		}
@@ -292,7 +736,10 @@ public final class CuckooFilter<T> {
 		}
 		
 		protected Buckets(int numOfBuckets, int numOfEntries, int fingerprintLength) {
-			int bitLengthOfBucket = numOfEntries * fingerprintLength;
+			this(numOfBuckets, numOfEntries, fingerprintLength, numOfEntries * fingerprintLength);
+		}
+		
+		protected Buckets(int numOfBuckets, int numOfEntries, int fingerprintLength, int bitLengthOfBucket) {
 			long bitLength = ((long)numOfBuckets) * bitLengthOfBucket;
 			int size = (int) ((bitLength - 1) / 64 + 1);
 			this.bits = new long[size];
@@ -302,8 +749,61 @@ public final class CuckooFilter<T> {
 			this.bitLengthOfBucket = bitLengthOfBucket;
 		}
 		
-		/** put the fingerprint into this bucket, return {@code true} if success, otherwise {@code false} */
-		final boolean put(byte[] fingerprint, int startBucketIndex) {
+		/** the bucket index is always within [0, numOfBuckets), widen before multiply to avoid overflow **/
+		protected final long bitIndex(int startBucketIndex) {
+			return ((long) startBucketIndex) * bitLengthOfBucket;
+		}
+		
+		protected static int segmentIndex(long bitIndex) { return (int) (bitIndex >>> 6);	}	// startBitIndex / 64
+		
+		protected static int offset(long bitIndex) { return (int) (bitIndex & 0x3fL); }	// startBitIndex % 64
+	}
+	
+	/**
+	 * buckets of fingerprints within 64 bits, a fingerprint is kept in a long all the way, no byte[] round-trip.
+	 * a fingerprint is never 0, which represents an empty entry.
+	 */
+	private static abstract class LongBuckets extends Buckets {
+		
+		protected LongBuckets(int numOfBuckets, int numOfEntries, int fingerprintLength) {
+			super(numOfBuckets, numOfEntries, fingerprintLength);
+		}
+		
+		protected LongBuckets(int numOfBuckets, int numOfEntries, int fingerprintLength, int bitLengthOfBucket) {
+			super(numOfBuckets, numOfEntries, fingerprintLength, bitLengthOfBucket);
+		}
+		
+		/** put the fingerprint into the bucket, return {@code true} if success, otherwise {@code false} **/
+		abstract boolean put(long fingerprint, int startBucketIndex);
+		
+		/** put the fingerprint into the bucket, return the replaced fingerprint if the bucket is full, otherwise 0 **/
+		abstract long putOrReplace(long fingerprint, int startBucketIndex);
+		
+		/** return {@code true} if the fingerprint is in the bucket **/
+		abstract boolean contain(long fingerprint, int startBucketIndex);
+		
+		/** remove the fingerprint from the bucket, return {@code true} if it was in the bucket **/
+		abstract boolean remove(long fingerprint, int startBucketIndex);
+		
+		/** return the fingerprint at the entry of the bucket, 0 if the entry is empty **/
+		abstract long fingerprintAt(int bucketIndex, int entryIndex);
+		
+		/** clear the entry of the bucket, return the fingerprint removed **/
+		abstract long removeAt(int bucketIndex, int entryIndex);
+		
+		/** return true if the bucket has no empty entry **/
+		abstract boolean isFull(int bucketIndex);
+	}
+	
+	/** fingerprintLength <= 64, an entry is at a fixed bit index of its bucket **/
+	private static final class SmallFingerprintBuckets extends LongBuckets {
+
+		SmallFingerprintBuckets(int numOfBuckets, int numOfEntries, int fingerprintLength) {
+			super(numOfBuckets, numOfEntries, fingerprintLength);
+		}
+		
+		@Override
+		boolean put(long fingerprint, int startBucketIndex) {
 			long startBitIndex = bitIndex(startBucketIndex);
 			for(int i=0; i<numOfEntries; i++) {
 				if(putAt(fingerprint, startBitIndex)) { return true; }
@@ -312,27 +812,19 @@ public final class CuckooFilter<T> {
 			return false;
 		}
 		
-		private int bitIndex(int startBucketIndex) {
-			startBucketIndex = Math.abs(startBucketIndex % numOfBuckets);
-			return startBucketIndex * bitLengthOfBucket;
-		}
-		
-		protected abstract boolean putAt(byte[] fingerprint, long startBitIndex);
-		
-		/** put the fingerprint into this bucket, return the replaced fingerprint if bucket is full, otherwise {@code null}  */
-		final byte[] putOrReplace(byte[] fingerprint, int startBucketIndex) {
+		@Override
+		long putOrReplace(long fingerprint, int startBucketIndex) {
 			long startBitIndex = bitIndex(startBucketIndex);
 			long index = startBitIndex;
 			for(int i=0; i<numOfEntries; i++) {
-				if(putAt(fingerprint, index)) { return null; }
+				if(putAt(fingerprint, index)) { return 0; }
 				index += fingerprintLength;
 			}
 			return replaceAt(fingerprint, startBitIndex + RAND.nextInt(numOfEntries)*fingerprintLength);
 		}
 		
-		protected abstract byte[] replaceAt(byte[] fingerprint, long startBitIndex);
-		
-		boolean contain(byte[] fingerprint, int startBucketIndex) {
+		@Override
+		boolean contain(long fingerprint, int startBucketIndex) {
 			long startBitIndex = bitIndex(startBucketIndex);
 			for(int i=0; i<numOfEntries; i++) {
 				if(existAt(fingerprint, startBitIndex)) { return true; }
@@ -341,9 +833,8 @@ public final class CuckooFilter<T> {
 			return false;
 		}
 		
-		protected abstract boolean existAt(byte[] fingerprint, long startBitIndex);
-		
-		boolean remove(byte[] fingerprint, int startBucketIndex) {
+		@Override
+		boolean remove(long fingerprint, int startBucketIndex) {
 			long startBitIndex = bitIndex(startBucketIndex);
 			for(int i=0; i<numOfEntries; i++) {
 				if(existAt(fingerprint, startBitIndex)) {
@@ -355,22 +846,30 @@ public final class CuckooFilter<T> {
 			return false;
 		}
 		
-		protected abstract void clearAt(long startBitIndex);
-		
-		protected static int segmentIndex(long bitIndex) { return (int) (bitIndex >>> 6);	}	// startBitIndex / 64
+		@Override
+		long fingerprintAt(int bucketIndex, int entryIndex) {
+			return getAt(bitIndex(bucketIndex) + entryIndex * fingerprintLength);
+		}
 		
-		protected static int offset(long bitIndex) { return (int) (bitIndex & 0x3fL); }	// startBitIndex % 64
-	}
-	
-	/** fingerprintLength <= 64 **/
-	private static final class SmallFingerprintBuckets extends Buckets {
-
-		SmallFingerprintBuckets(int numOfBuckets, int numOfEntries, int fingerprintLength) {
-			super(numOfBuckets, numOfEntries, fingerprintLength);
+		@Override
+		long removeAt(int bucketIndex, int entryIndex) {
+			long startBitIndex = bitIndex(bucketIndex) + entryIndex * fingerprintLength;
+			long fingerprint = getAt(startBitIndex);
+			clearAt(startBitIndex);
+			return fingerprint;
 		}
 		
 		@Override
-		protected boolean putAt(byte[] fingerprint, long startBitIndex) {
+		boolean isFull(int bucketIndex) {
+			long startBitIndex = bitIndex(bucketIndex);
+			for(int i=0; i<numOfEntries; i++) {
+				if(getAt(startBitIndex) == 0) { return false; }
+				startBitIndex += fingerprintLength;
+			}
+			return true;
+		}
+		
+		private boolean putAt(long fingerprint, long startBitIndex) {
 			int segmentIndex = segmentIndex(startBitIndex);
 			int offset = offset(startBitIndex);
 			long segment = bits[segmentIndex];
@@ -379,7 +878,7 @@ public final class CuckooFilter<T> {
 			if(endOffset <= 64) {
 				long mask = (SEGMENT_MASK >>> (-endOffset)) & (SEGMENT_MASK << offset);
 				if((segment & mask) != 0) { return false; }
-				segment |= ((HashCode.asLong(fingerprint) << offset) & mask);
+				segment |= ((fingerprint << offset) & mask);
 				bits[segmentIndex] = segment;
 				return true;
 			}else {		// cross segment
@@ -387,17 +886,15 @@ public final class CuckooFilter<T> {
 				long secondMask = SEGMENT_MASK >>> (-endOffset);
 				long secondSegment = bits[segmentIndex+1];
 				if((segment & firstMask) != 0 || (secondSegment & secondMask) != 0) { return false; }
-				long f = HashCode.asLong(fingerprint);
-				segment |= (f << offset);
-				secondSegment |= (f << (-fingerprintLength) >>> (-endOffset));
+				segment |= (fingerprint << offset);
+				secondSegment |= (fingerprint << (-fingerprintLength) >>> (-endOffset));
 				bits[segmentIndex] = segment;
 				bits[segmentIndex+1] = secondSegment;
 				return true;
 			}
 		}
 		
-		@Override
-		protected byte[] replaceAt(byte[] fingerprint, long startBitIndex) {
+		private long replaceAt(long fingerprint, long startBitIndex) {
 			int segmentIndex = segmentIndex(startBitIndex);
 			int offset = offset(startBitIndex);
 			long segment = bits[segmentIndex];
@@ -407,66 +904,56 @@ public final class CuckooFilter<T> {
 				long mask = (SEGMENT_MASK >>> (-endOffset)) & (SEGMENT_MASK << offset);
 				long replaced = (segment & mask) >>> offset;
 				segment &= (~mask);		// clear
-				segment |= ((HashCode.asLong(fingerprint) << offset) & mask);	// set
+				segment |= ((fingerprint << offset) & mask);	// set
 				bits[segmentIndex] = segment;
-				return toBytes(replaced, fingerprint);
+				return replaced;
 			}else {		// cross segment
 				long firstMask = SEGMENT_MASK << offset;
 				long secondMask = SEGMENT_MASK >>> (-endOffset);
 				long secondSegment = bits[segmentIndex+1];
-				long f = HashCode.asLong(fingerprint);
 				long replaced = segment >>> offset;
 				segment &= (~firstMask);	// clear
-				segment |= (f << offset);	// set
+				segment |= (fingerprint << offset);	// set
 				replaced |= (secondSegment & secondMask) << (-offset);
 				secondSegment &= (~secondMask);	// clear
-				secondSegment |= (f << (-fingerprintLength) >>> (-endOffset));	// set
+				secondSegment |= (fingerprint << (-fingerprintLength) >>> (-endOffset));	// set
 				bits[segmentIndex] = segment;
 				bits[segmentIndex+1] = secondSegment;
-				return toBytes(replaced, fingerprint);
+				return replaced & (SEGMENT_MASK >>> (-fingerprintLength));
 			}
 		}
 		
-		private byte[] toBytes(long replaced, byte[] fingerprint) {
-			replaced &= (SEGMENT_MASK >>> (-fingerprintLength));
-			int size = ((fingerprintLength-1) >>> 3) + 1; 
-			size = Math.min(size, fingerprint.length);
-			switch(size) {
-			case 8: fingerprint[7] = (byte) ((replaced >>> 56) & 0xffL);
-			case 7: fingerprint[6] = (byte) ((replaced >>> 48) & 0xffL);
-			case 6: fingerprint[5] = (byte) ((replaced >>> 40) & 0xffL);
-			case 5: fingerprint[4] = (byte) ((replaced >>> 32) & 0xffL);
-			case 4: fingerprint[3] = (byte) ((replaced >>> 24) & 0xffL);
-			case 3: fingerprint[2] = (byte) ((replaced >>> 16) & 0xffL);
-			case 2: fingerprint[1] = (byte) ((replaced >>> 8) & 0xffL);
-			case 1: fingerprint[0] = (byte) (replaced & 0xffL);
+		/** return the fingerprint at {@code startBitIndex}, 0 if the entry is empty **/
+		private long getAt(long startBitIndex) {
+			int segmentIndex = segmentIndex(startBitIndex);
+			int offset = offset(startBitIndex);
+			long fingerprint = bits[segmentIndex] >>> offset;
+			if(offset + fingerprintLength > 64) {		// cross segment
+				fingerprint |= bits[segmentIndex+1] << (-offset);
 			}
-			return fingerprint;
+			return fingerprint & (SEGMENT_MASK >>> (-fingerprintLength));
 		}
-
-		@Override
-		protected boolean existAt(byte[] fingerprint, long startBitIndex) {
+		
+		private boolean existAt(long fingerprint, long startBitIndex) {
 			int segmentIndex = segmentIndex(startBitIndex);
 			int offset = offset(startBitIndex);
 			long segment = bits[segmentIndex];
 			
 			long mask = SEGMENT_MASK >>> (-fingerprintLength);
-			long f = HashCode.asLong(fingerprint) & mask;
 			int endOffset = offset + fingerprintLength;
 			if(endOffset <= 64) {
 				long existed = (segment >>> offset) & mask;
-				return f == existed;
+				return fingerprint == existed;
 			}else {		// cross segment
 				long existed = segment >>> offset;
 				long secondSegment = bits[segmentIndex+1];
 				existed |= secondSegment << (-offset);
 				existed &= mask; 
-				return f == existed;
+				return fingerprint == existed;
 			}
 		}
 		
-		@Override
-		protected void clearAt(long startBitIndex) {
+		private void clearAt(long startBitIndex) {
 			int segmentIndex = segmentIndex(startBitIndex);
 			int offset = offset(startBitIndex);
 			long segment = bits[segmentIndex];
@@ -495,8 +982,51 @@ public final class CuckooFilter<T> {
 			super(numOfBuckets, numOfEntries, fingerprintLength);
 		}
 
-		@Override
-		protected boolean putAt(byte[] fingerprint, long startBitIndex) {
+		/** put the fingerprint into the bucket, return {@code true} if success, otherwise {@code false} **/
+		boolean put(byte[] fingerprint, int startBucketIndex) {
+			long startBitIndex = bitIndex(startBucketIndex);
+			for(int i=0; i<numOfEntries; i++) {
+				if(putAt(fingerprint, startBitIndex)) { return true; }
+				startBitIndex += fingerprintLength;
+			}
+			return false;
+		}
+		
+		/** put the fingerprint into the bucket, return the replaced fingerprint if the bucket is full, otherwise {@code null} **/
+		byte[] putOrReplace(byte[] fingerprint, int startBucketIndex) {
+			long startBitIndex = bitIndex(startBucketIndex);
+			long index = startBitIndex;
+			for(int i=0; i<numOfEntries; i++) {
+				if(putAt(fingerprint, index)) { return null; }
+				index += fingerprintLength;
+			}
+			return replaceAt(fingerprint, startBitIndex + RAND.nextInt(numOfEntries)*fingerprintLength);
+		}
+		
+		/** return {@code true} if the fingerprint is in the bucket **/
+		boolean contain(byte[] fingerprint, int startBucketIndex) {
+			long startBitIndex = bitIndex(startBucketIndex);
+			for(int i=0; i<numOfEntries; i++) {
+				if(existAt(fingerprint, startBitIndex)) { return true; }
+				startBitIndex += fingerprintLength;
+			}
+			return false;
+		}
+		
+		/** remove the fingerprint from the bucket, return {@code true} if it was in the bucket **/
+		boolean remove(byte[] fingerprint, int startBucketIndex) {
+			long startBitIndex = bitIndex(startBucketIndex);
+			for(int i=0; i<numOfEntries; i++) {
+				if(existAt(fingerprint, startBitIndex)) {
+					clearAt(startBitIndex);
+					return true;
+				}
+				startBitIndex += fingerprintLength;
+			}
+			return false;
+		}
+		
+		private boolean putAt(byte[] fingerprint, long startBitIndex) {
 			int segmentIndex = segmentIndex(startBitIndex);
 			int segmentOffset = offset(startBitIndex);
 
@@ -531,8 +1061,7 @@ public final class CuckooFilter<T> {
 			return true;
 		}
 
-		@Override
-		protected byte[] replaceAt(byte[] fingerprint, long startBitIndex) {
+		private byte[] replaceAt(byte[] fingerprint, long startBitIndex) {
 			int segmentIndex = segmentIndex(startBitIndex);
 			int segmentOffset = offset(startBitIndex);
 
@@ -604,8 +1133,7 @@ public final class CuckooFilter<T> {
 			return (byte) oldValue;
 		}
 
-		@Override
-		protected boolean existAt(byte[] fingerprint, long startBitIndex) {
+		private boolean existAt(byte[] fingerprint, long startBitIndex) {
 			int segmentIndex = segmentIndex(startBitIndex);
 			int segmentOffset = offset(startBitIndex);
 
@@ -632,8 +1160,7 @@ public final class CuckooFilter<T> {
 			return true;
 		}
 
-		@Override
-		protected void clearAt(long startBitIndex) {
+		private void clearAt(long startBitIndex) {
 			int segmentIndex = segmentIndex(startBitIndex);
 			int segmentOffset = offset(startBitIndex);
 
@@ -651,6 +1178,176 @@ public final class CuckooFilter<T> {
 				bits[index] &= (~mask);
 			}
 		}
+	}
+	
+	/**
+	 * 4 entries per bucket, fingerprintLength within (4, 64]. the low 4 bits (prefix) of the fingerprints
+	 * in a bucket are sorted, there are only C(19, 4) = 3876 sorted combinations of 4 prefixes, so they
+	 * are encoded into 12 bits instead of 16, one bit saved per entry, see section 5.2 of the cuckoo filter paper.
+	 * <p>a bucket is the 12 bits encoded prefixes followed by the 4 remaining bits (suffix) of its fingerprints,
+	 * in the order of prefixes. a bucket is decoded for every operation, so an entry has no fixed position,
+	 * it is addressed by bucket and entry index instead of the bit index.</p>
+	 */
+	private static final class SemiSortedBuckets extends LongBuckets {
+		static final int NUM_OF_ENTRIES = 4;
+		static final int PREFIX_LENGTH = 4;
+		static final int ENCODED_PREFIXES_LENGTH = 12;
+		
+		/** the sorted 4 prefixes of a code, packed into 16 bits **/
+		private static final short[] DECODE_TABLE = new short[3876];
+		/** the code of sorted 4 prefixes packed into 16 bits **/
+		private static final short[] ENCODE_TABLE = new short[1 << 16];
+		
+		static {
+			int code = 0;
+			for(int a=0; a<16; a++) {
+				for(int b=a; b<16; b++) {
+					for(int c=b; c<16; c++) {
+						for(int d=c; d<16; d++) {
+							int prefixes = a | (b << 4) | (c << 8) | (d << 12);
+							DECODE_TABLE[code] = (short) prefixes;
+							ENCODE_TABLE[prefixes] = (short) code++;
+						}
+					}
+				}
+			}
+		}
+		
+		private final int suffixLength;
+		
+		/** reused decoded fingerprints of a bucket **/
+		private final long[] entries = new long[NUM_OF_ENTRIES];
+		
+		SemiSortedBuckets(int numOfBuckets, int fingerprintLength) {
+			super(numOfBuckets, NUM_OF_ENTRIES, fingerprintLength,
+					ENCODED_PREFIXES_LENGTH + NUM_OF_ENTRIES * (fingerprintLength - PREFIX_LENGTH));
+			this.suffixLength = fingerprintLength - PREFIX_LENGTH;
+		}
+		
+		/** decode the fingerprints of the bucket into {@link #entries} **/
+		private void decode(int bucketIndex) {
+			long startBitIndex = bitIndex(bucketIndex);
+			int prefixes = DECODE_TABLE[(int) read(startBitIndex, ENCODED_PREFIXES_LENGTH)] & 0xffff;
+			startBitIndex += ENCODED_PREFIXES_LENGTH;
+			for(int i=0; i<NUM_OF_ENTRIES; i++) {
+				entries[i] = entryAt(prefixes, i, startBitIndex);
+				startBitIndex += suffixLength;
+			}
+		}
+		
+		/** the i-th fingerprint of a bucket of the decoded {@code prefixes}, whose suffix is at {@code suffixBitIndex} **/
+		private long entryAt(int prefixes, int i, long suffixBitIndex) {
+			return ((prefixes >>> (i << 2)) & 0x0f) | (read(suffixBitIndex, suffixLength) << PREFIX_LENGTH);
+		}
+		
+		/** sort {@link #entries} by prefix and encode them into the bucket **/
+		private void encode(int bucketIndex) {
+			long[] e = entries;
+			sort(e, 0, 1); sort(e, 2, 3); sort(e, 0, 2); sort(e, 1, 3); sort(e, 1, 2);	// sorting network
+			int prefixes = (int) ((e[0] & 0x0f) | ((e[1] & 0x0f) << 4) | ((e[2] & 0x0f) << 8) | ((e[3] & 0x0f) << 12));
+			long startBitIndex = bitIndex(bucketIndex);
+			write(startBitIndex, ENCODED_PREFIXES_LENGTH, ENCODE_TABLE[prefixes]);
+			startBitIndex += ENCODED_PREFIXES_LENGTH;
+			for(int i=0; i<NUM_OF_ENTRIES; i++) {
+				write(startBitIndex, suffixLength, e[i] >>> PREFIX_LENGTH);
+				startBitIndex += suffixLength;
+			}
+		}
+		
+		private static void sort(long[] e, int i, int j) {
+			if((e[i] & 0x0f) > (e[j] & 0x0f)) { long t = e[i]; e[i] = e[j]; e[j] = t; }
+		}
+		
+		/** read {@code len} (<= 64) bits at {@code startBitIndex} **/
+		private long read(long startBitIndex, int len) {
+			int segmentIndex = segmentIndex(startBitIndex);
+			int offset = offset(startBitIndex);
+			long value = bits[segmentIndex] >>> offset;
+			if(offset + len > 64) {		// cross segment
+				value |= bits[segmentIndex+1] << (-offset);
+			}
+			return value & (SEGMENT_MASK >>> (-len));
+		}
 		
+		/** write the low {@code len} (<= 60) bits of {@code value} at {@code startBitIndex} **/
+		private void write(long startBitIndex, int len, long value) {
+			int segmentIndex = segmentIndex(startBitIndex);
+			int offset = offset(startBitIndex);
+			long mask = SEGMENT_MASK >>> (-len);
+			value &= mask;
+			bits[segmentIndex] = (bits[segmentIndex] & ~(mask << offset)) | (value << offset);
+			if(offset + len > 64) {		// cross segment
+				bits[segmentIndex+1] = (bits[segmentIndex+1] & ~(mask >>> (-offset))) | (value >>> (-offset));
+			}
+		}
+		
+		@Override
+		boolean put(long fingerprint, int startBucketIndex) {
+			decode(startBucketIndex);
+			for(int i=0; i<NUM_OF_ENTRIES; i++) {
+				if(entries[i] == 0) {
+					entries[i] = fingerprint;
+					encode(startBucketIndex);
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		@Override
+		long putOrReplace(long fingerprint, int startBucketIndex) {
+			if(put(fingerprint, startBucketIndex)) { return 0; }
+			int i = RAND.nextInt(NUM_OF_ENTRIES);	// decoded by put() already
+			long replaced = entries[i];
+			entries[i] = fingerprint;
+			encode(startBucketIndex);
+			return replaced;
+		}
+		
+		@Override
+		boolean contain(long fingerprint, int startBucketIndex) {	// read in place, lookups never share entries
+			long startBitIndex = bitIndex(startBucketIndex);
+			int prefixes = DECODE_TABLE[(int) read(startBitIndex, ENCODED_PREFIXES_LENGTH)] & 0xffff;
+			startBitIndex += ENCODED_PREFIXES_LENGTH;
+			for(int i=0; i<NUM_OF_ENTRIES; i++) {
+				if(entryAt(prefixes, i, startBitIndex) == fingerprint) { return true; }
+				startBitIndex += suffixLength;
+			}
+			return false;
+		}
+		
+		@Override
+		boolean remove(long fingerprint, int startBucketIndex) {
+			decode(startBucketIndex);
+			for(int i=0; i<NUM_OF_ENTRIES; i++) {
+				if(entries[i] == fingerprint) {
+					entries[i] = 0;
+					encode(startBucketIndex);
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		@Override
+		long fingerprintAt(int bucketIndex, int entryIndex) {
+			decode(bucketIndex);
+			return entries[entryIndex];
+		}
+		
+		@Override
+		long removeAt(int bucketIndex, int entryIndex) {
+			decode(bucketIndex);
+			long fingerprint = entries[entryIndex];
+			entries[entryIndex] = 0;
+			encode(bucketIndex);
+			return fingerprint;
+		}
+		
+		@Override
+		boolean isFull(int bucketIndex) {
+			decode(bucketIndex);
+			return entries[0] != 0 && entries[1] != 0 && entries[2] != 0 && entries[3] != 0;
+		}
 	}
 }
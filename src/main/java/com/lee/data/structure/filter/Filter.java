@@ -0,0 +1,57 @@
+package com.lee.data.structure.filter;
+
+import com.lee.data.structure.util.HashFunction;
+
+/**
+ * a probabilistic set, {@link #mightContain(Object)} never returns {@code false} for an element
+ * has been put, but might return {@code true} for an element never put.
+ * <p>implementations differ in space, speed, removal and concurrency, see {@link FilterType}
+ * to choose one by configuration.</p>
+ */
+public interface Filter<T> {
+
+	/**
+	 * put an element into this filter, ensure that subsequent invocations of {@link #mightContain(Object)}
+	 * with the same element will always return {@code true}, unless {@link FilterStats#numOfKickoutElements()
+	 * an element is kicked out}.
+	 * @return false if this operation makes no difference to subsequent lookups, either the element
+	 * <i>might</i> have been put already, or the filter is unable to take it. otherwise true.
+	 * @throws UnsupportedOperationException	if this filter is immutable
+	 */
+	boolean put(T element);
+
+	/**
+	 * put all {@code elements} into this filter, same as {@link #put(Object)} one by one.
+	 * @return true if any of {@link #put(Object)} returns true
+	 */
+	boolean putAll(T[] elements);
+
+	/** same as {@link #putAll(Object[])} **/
+	boolean putAll(Iterable<? extends T> elements);
+
+	/**
+	 * return {@code true} if the element <i>might</i> have been put in this filter,
+	 * {@code false} if this is <i>definitely</i> not the case.
+	 */
+	boolean mightContain(T element);
+
+	/**
+	 * return whether each of {@code elements} <i>might</i> have been put in this filter,
+	 * same as {@link #mightContain(Object)} one by one.
+	 * @return	the results in the order of {@code elements}
+	 */
+	boolean[] mightContainAll(T[] elements);
+
+	/**
+	 * same as {@link #mightContainAll(Object[])}, but write the results into {@code results},
+	 * which can be reused between batches.
+	 * @throws IllegalArgumentException	if {@code results} is shorter than {@code elements}
+	 */
+	void mightContainAll(T[] elements, boolean[] results);
+
+	/** return a snapshot of the statistics of this filter **/
+	FilterStats stats();
+
+	/** return the hash function of elements within this filter **/
+	HashFunction hashFunction();
+}
@@ -0,0 +1,69 @@
+package com.lee.data.structure.filter;
+
+/**
+ * a snapshot of the statistics of a {@link Filter}, the same for every implementation so that they
+ * can be exported as uniform metrics.
+ * <p>the operation counters are only counted by an {@link InstrumentedFilter}, they are 0 otherwise,
+ * so that a bare filter pays nothing for them.</p>
+ */
+public final class FilterStats {
+
+	private final double fillRatio;
+	private final double currentFpp;
+	private final long numOfKickoutElements;
+	private final long byteSize;
+	private final long numOfPuts;
+	private final long numOfLookups;
+	private final long numOfHits;
+
+	FilterStats(double fillRatio, double currentFpp, long numOfKickoutElements, long byteSize) {
+		this(fillRatio, currentFpp, numOfKickoutElements, byteSize, 0, 0, 0);
+	}
+
+	private FilterStats(double fillRatio, double currentFpp, long numOfKickoutElements, long byteSize,
+			long numOfPuts, long numOfLookups, long numOfHits) {
+		this.fillRatio = fillRatio;
+		this.currentFpp = currentFpp;
+		this.numOfKickoutElements = numOfKickoutElements;
+		this.byteSize = byteSize;
+		this.numOfPuts = numOfPuts;
+		this.numOfLookups = numOfLookups;
+		this.numOfHits = numOfHits;
+	}
+
+	/** return a copy with the operation counters **/
+	FilterStats withOps(long numOfPuts, long numOfLookups, long numOfHits) {
+		return new FilterStats(fillRatio, currentFpp, numOfKickoutElements, byteSize, numOfPuts, numOfLookups, numOfHits);
+	}
+
+	/**
+	 * return the fraction of the filter in use, set bits of a Bloom filter, occupied entries of a
+	 * cuckoo filter, a filter is full around 0.5 and 0.95 respectively.
+	 */
+	public double fillRatio() { return fillRatio; }
+
+	/** return the estimated probability that {@link Filter#mightContain(Object)} erroneously returns {@code true} **/
+	public double currentFpp() { return currentFpp; }
+
+	/** return the number of elements kicked out or rejected by a full filter, which might be false negatives **/
+	public long numOfKickoutElements() { return numOfKickoutElements; }
+
+	/** return the number of bytes of the underlying bits or buckets **/
+	public long byteSize() { return byteSize; }
+
+	/** return the number of elements put, see {@link InstrumentedFilter} **/
+	public long numOfPuts() { return numOfPuts; }
+
+	/** return the number of elements looked up, see {@link InstrumentedFilter} **/
+	public long numOfLookups() { return numOfLookups; }
+
+	/** return the number of elements looked up and <i>might</i> be contained, see {@link InstrumentedFilter} **/
+	public long numOfHits() { return numOfHits; }
+
+	@Override
+	public String toString() {
+		return String.format("FilterStats{fillRatio=%f, currentFpp=%e, numOfKickoutElements=%d, byteSize=%d, "
+				+ "numOfPuts=%d, numOfLookups=%d, numOfHits=%d}",
+				fillRatio, currentFpp, numOfKickoutElements, byteSize, numOfPuts, numOfLookups, numOfHits);
+	}
+}
@@ -0,0 +1,114 @@
+package com.lee.data.structure.filter;
+
+import com.lee.data.structure.util.HashFunction;
+import com.lee.data.structure.util.Hashing;
+
+/**
+ * the mutable {@link Filter} implementations, to choose one by configuration, e.g.
+ * {@code FilterType.valueOf(name).create(expectedCapacity, fpp)}.
+ * <p>a {@link BinaryFuseFilter} isn't one of them, it is built from all of its elements at once.</p>
+ */
+public enum FilterType {
+
+	/** see {@link BloomFilter#create(int, double, HashFunction)} **/
+	BLOOM {
+		@Override
+		public <T> Filter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction) {
+			return BloomFilter.<T>create(expectedCapacity, fpp, hashFunction);
+		}
+	},
+
+	/** see {@link BloomFilter#createBlocked(int, double, HashFunction)} **/
+	BLOCKED_BLOOM {
+		@Override
+		public <T> Filter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction) {
+			return BloomFilter.<T>createBlocked(expectedCapacity, fpp, hashFunction);
+		}
+	},
+
+	/** see {@link ConcurrentBloomFilter#create(int, double, HashFunction)} **/
+	CONCURRENT_BLOOM {
+		@Override
+		public <T> Filter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction) {
+			return ConcurrentBloomFilter.<T>create(expectedCapacity, fpp, hashFunction);
+		}
+	},
+
+	/** see {@link ScalableBloomFilter#create(int, double, HashFunction)}, the expected capacity is of the first stage **/
+	SCALABLE_BLOOM {
+		@Override
+		public <T> Filter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction) {
+			return ScalableBloomFilter.<T>create(expectedCapacity, fpp, hashFunction);
+		}
+	},
+
+	/** see {@link CountingBloomFilter#create(int, double, HashFunction)} **/
+	COUNTING_BLOOM {
+		@Override
+		public <T> Filter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction) {
+			return CountingBloomFilter.<T>create(expectedCapacity, fpp, hashFunction);
+		}
+	},
+
+	/** see {@link CuckooFilter#create(int, double, HashFunction)} **/
+	CUCKOO {
+		@Override
+		public <T> Filter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction) {
+			return CuckooFilter.<T>create(expectedCapacity, fpp, hashFunction);
+		}
+	},
+
+	/** see {@link CuckooFilter#createBreadthFirst(int, double, HashFunction)} **/
+	BREADTH_FIRST_CUCKOO {
+		@Override
+		public <T> Filter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction) {
+			return CuckooFilter.<T>createBreadthFirst(expectedCapacity, fpp, hashFunction);
+		}
+	},
+
+	/** see {@link CuckooFilter#createSemiSorted(int, double, HashFunction)} **/
+	SEMI_SORTED_CUCKOO {
+		@Override
+		public <T> Filter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction) {
+			return CuckooFilter.<T>createSemiSorted(expectedCapacity, fpp, hashFunction);
+		}
+	},
+
+	/** see {@link ScalableCuckooFilter#create(int, double, HashFunction)}, the expected capacity is of the first stage **/
+	SCALABLE_CUCKOO {
+		@Override
+		public <T> Filter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction) {
+			return ScalableCuckooFilter.<T>create(expectedCapacity, fpp, hashFunction);
+		}
+	},
+
+	/** see {@link ConcurrentCuckooFilter#create(int, double, HashFunction)} **/
+	CONCURRENT_CUCKOO {
+		@Override
+		public <T> Filter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction) {
+			return ConcurrentCuckooFilter.<T>create(expectedCapacity, fpp, hashFunction);
+		}
+	};
+
+	/**
+	 * create a {@link Filter Filter<T>} of this type with the expected number of element,
+     * expected false positive probability and the hash function of elements.
+	 * @param expectedCapacity 	expected number of elements
+	 * @param fpp	expected false positive probability
+	 * @param hashFunction	hash function of elements, e.g {@link Hashing#murmur3(long)}
+	 * @return	a {@link Filter}
+	 */
+	public abstract <T> Filter<T> create(int expectedCapacity, double fpp, HashFunction hashFunction);
+
+	/**
+	 * create a {@link Filter Filter<T>} of this type with the expected number of element and
+     * expected false positive probability.
+     * <p>elements are hashed by {@link Hashing#murmur3()}, whose seed differs between JVMs</p>
+	 * @param expectedCapacity 	expected number of elements
+	 * @param fpp	expected false positive probability
+	 * @return	a {@link Filter}
+	 */
+	public <T> Filter<T> create(int expectedCapacity, double fpp) {
+		return create(expectedCapacity, fpp, Hashing.murmur3());
+	}
+}
@@ -0,0 +1,94 @@
+package com.lee.data.structure.filter;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.lee.data.structure.util.HashFunction;
+
+/**
+ * a {@link Filter} which counts the operations on another one, the counters show up in its {@link #stats()}.
+ * <p>the counters are striped, it is thread safe as far as the underlying filter is.</p>
+ */
+public final class InstrumentedFilter<T> extends AbstractFilter<T> {
+
+	private final Filter<T> filter;
+	private final LongAdder numOfPuts = new LongAdder();
+	private final LongAdder numOfLookups = new LongAdder();
+	private final LongAdder numOfHits = new LongAdder();
+
+	private InstrumentedFilter(Filter<T> filter) {
+		if(filter == null) {
+			throw new NullPointerException("filter is null");
+		}
+		this.filter = filter;
+	}
+
+	@Override
+	public boolean put(T element) {
+		numOfPuts.increment();
+		return filter.put(element);
+	}
+
+	@Override
+	public boolean putAll(T[] elements) {
+		numOfPuts.add(elements.length);
+		return filter.putAll(elements);
+	}
+
+	/** the elements are counted while the underlying filter iterates them, a one-shot {@link Iterable} works too **/
+	@Override
+	public boolean putAll(final Iterable<? extends T> elements) {
+		return filter.putAll(new Iterable<T>() {
+			@Override
+			public Iterator<T> iterator() {
+				final Iterator<? extends T> it = elements.iterator();
+				return new Iterator<T>() {
+					@Override
+					public boolean hasNext() { return it.hasNext(); }
+
+					@Override
+					public T next() {
+						T element = it.next();
+						numOfPuts.increment();
+						return element;
+					}
+				};
+			}
+		});
+	}
+
+	@Override
+	public boolean mightContain(T element) {
+		numOfLookups.increment();
+		if(filter.mightContain(element)) {
+			numOfHits.increment();
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void mightContainAll(T[] elements, boolean[] results) {
+		filter.mightContainAll(elements, results);
+		int hits = 0;
+		for(int i=0; i<elements.length; i++) { if(results[i]) { hits++; } }
+		numOfLookups.add(elements.length);
+		numOfHits.add(hits);
+	}
+
+	@Override
+	public FilterStats stats() {
+		return filter.stats().withOps(numOfPuts.sum(), numOfLookups.sum(), numOfHits.sum());
+	}
+
+	@Override
+	public HashFunction hashFunction() { return filter.hashFunction(); }
+
+	/** return the underlying filter **/
+	public Filter<T> filter() { return filter; }
+
+	/** return a {@link Filter} counting the operations on {@code filter} **/
+	public static <T> InstrumentedFilter<T> of(Filter<T> filter) {
+		return new InstrumentedFilter<T>(filter);
+	}
+}
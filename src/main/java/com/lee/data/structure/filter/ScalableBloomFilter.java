@@ -0,0 +1,196 @@
+package com.lee.data.structure.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.lee.data.structure.util.HashFunction;
+import com.lee.data.structure.util.Hashing;
+
+/**
+ * a Bloom filter which grows with the number of elements, the false positive probability
+ * keeps bounded however many elements are put.
+ * <p>it is a chain of {@link BloomFilter} stages, elements are put into the last stage only. once
+ * the last stage is filled up to its expected capacity (half of its bits are set), a new stage is
+ * chained with {@link #growthFactor} times bigger capacity and {@link #tighteningRatio} times smaller
+ * false positive probability. the false positive probability of the whole chain is bounded by
+ * {@code P0 / (1 - r)}, P0 is the probability of the first stage, r the tightening ratio.</p>
+ * see more detail of <a href="https://gsd.di.uminho.pt/members/cbm/ps/dbloom.pdf">Scalable Bloom Filters</a>
+ * @NotThreadSafe
+ **/
+public final class ScalableBloomFilter<T> extends AbstractFilter<T> {
+
+	/** the default capacity multiple of a new stage, suits a fast growing set **/
+	private static final int DEFAULT_GROWTH_FACTOR = 2;
+
+	/** the default false positive probability multiple of a new stage **/
+	private static final double DEFAULT_TIGHTENING_RATIO = 0.85;
+
+	/** a stage is full once the fraction of set bits reaches this, see {@link BloomFilter#fillRatio()} **/
+	private static final double FILL_RATIO_THRESHOLD = 0.5;
+
+	/** the stages, the last one is being filled **/
+	private final List<BloomFilter<T>> stages = new ArrayList<BloomFilter<T>>();
+
+	/** capacity multiple of a new stage **/
+	private final int growthFactor;
+
+	/** false positive probability multiple of a new stage **/
+	private final double tighteningRatio;
+
+	/** hash function of elements, shared by all stages **/
+	private final HashFunction hashFunction;
+
+	/** expected capacity of the last stage **/
+	private long stageCapacity;
+
+	/** false positive probability of the last stage **/
+	private double stageFpp;
+
+	private ScalableBloomFilter(int initialCapacity, double fpp, int growthFactor, double tighteningRatio, HashFunction hashFunction) {
+		this.growthFactor = growthFactor;
+		this.tighteningRatio = tighteningRatio;
+		this.hashFunction = hashFunction;
+		this.stageCapacity = initialCapacity;
+		this.stageFpp = fpp * (1 - tighteningRatio);	// P0, so that P0 + P0*r + P0*r^2 + ... <= fpp
+		stages.add(BloomFilter.<T>create(initialCapacity, stageFpp, hashFunction));
+	}
+
+	/**
+	 * put an element into this {@link ScalableBloomFilter}, ensure that subsequent invocations of
+     * {@link #mightContain(element)} with the same element will always return {@code true}.
+	 * @return true if the element is put into the last stage, false if it <i>might</i> have been put
+	 * in this filter already, so nothing changed.
+	 */
+	@Override
+	public boolean put(T element) {
+		long[] hashCode = threadHashCode();
+		hashFunction.hash128(element, hashCode);
+		long hash1 = hashCode[0], hash2 = hashCode[1];
+		if(mightContain(hash1, hash2)) { return false; }	// don't fill the last stage with existed elements
+		BloomFilter<T> stage = stages.get(stages.size() - 1);
+		if(stage.fillRatio() >= FILL_RATIO_THRESHOLD) {
+			stage = grow();
+		}
+		return stage.put(hash1, hash2);
+	}
+
+	/** chain a new stage with bigger capacity and smaller false positive probability **/
+	private BloomFilter<T> grow() {
+		stageCapacity = Math.min(Integer.MAX_VALUE, stageCapacity * growthFactor);
+		stageFpp *= tighteningRatio;
+		BloomFilter<T> stage = BloomFilter.create((int) stageCapacity, stageFpp, hashFunction);
+		stages.add(stage);
+		return stage;
+	}
+
+	/**
+	 * return {@code true} if the element <i>might</i> have been put in this Bloom filter,
+     * {@code false} if this is <i>definitely</i> not the case.
+	 */
+	@Override
+	public boolean mightContain(T element) {
+		long[] hashCode = threadHashCode();
+		hashFunction.hash128(element, hashCode);
+		return mightContain(hashCode[0], hashCode[1]);
+	}
+
+	private boolean mightContain(long hash1, long hash2) {
+		for(int i=stages.size()-1; i>=0; i--) {		// the last stage is the biggest one
+			if(stages.get(i).mightContain(hash1, hash2)) { return true; }
+		}
+		return false;
+	}
+
+	/**
+	 * return current probability that {@link #mightContain(element)} will erroneously return {@code true}
+     * for an element that has not actually been put, {@code 1 - (1-P0)(1-P1)...(1-Pn)}, Pi is the
+     * {@link BloomFilter#currentFpp() current probability} of each stage.
+	 */
+	public double currentFpp() {
+		double p = 1;
+		for(BloomFilter<T> stage : stages) { p *= (1 - stage.currentFpp()); }
+		return 1 - p;
+	}
+
+	/** return an estimate of the number of distinct elements put, see {@link BloomFilter#approximateElementCount()} **/
+	public long approximateElementCount() {
+		long count = 0;
+		for(BloomFilter<T> stage : stages) { count += stage.approximateElementCount(); }
+		return count;
+	}
+
+	/** return the number of chained stages **/
+	public int numOfStages() { return stages.size(); }
+
+	/** the fill ratio is of all stages, each one weighted by its size **/
+	@Override
+	public FilterStats stats() {
+		long byteSize = 0;
+		double setBytes = 0;
+		for(BloomFilter<T> stage : stages) {
+			byteSize += stage.byteSize();
+			setBytes += stage.fillRatio() * stage.byteSize();
+		}
+		return new FilterStats(setBytes / byteSize, currentFpp(), 0, byteSize);
+	}
+
+	/** return the hash function of elements within this ScalableBloomFilter **/
+	@Override
+	public HashFunction hashFunction() { return hashFunction; }
+
+	/**
+	 * create a {@link ScalableBloomFilter ScalableBloomFilter<T>} with the expected number of element
+     * of the first stage and the false positive probability bound.
+     * <p>elements are hashed by {@link Hashing#murmur3()}, whose seed differs between JVMs</p>
+	 * @param initialCapacity 	expected number of elements of the first stage
+	 * @param fpp	the false positive probability bound of the whole filter
+	 * @return	a {@link ScalableBloomFilter}
+	 */
+	public static <T> ScalableBloomFilter<T> create(int initialCapacity, double fpp) {
+		return create(initialCapacity, fpp, DEFAULT_GROWTH_FACTOR, DEFAULT_TIGHTENING_RATIO, Hashing.murmur3());
+	}
+
+	/**
+	 * create a {@link ScalableBloomFilter ScalableBloomFilter<T>} with the expected number of element of the first stage,
+     * the false positive probability bound and the hash function of elements.
+	 * @param initialCapacity 	expected number of elements of the first stage
+	 * @param fpp	the false positive probability bound of the whole filter
+	 * @param hashFunction	hash function of elements, e.g {@link Hashing#murmur3(long)}
+	 * @return	a {@link ScalableBloomFilter}
+	 */
+	public static <T> ScalableBloomFilter<T> create(int initialCapacity, double fpp, HashFunction hashFunction) {
+		return create(initialCapacity, fpp, DEFAULT_GROWTH_FACTOR, DEFAULT_TIGHTENING_RATIO, hashFunction);
+	}
+
+	/**
+	 * create a {@link ScalableBloomFilter ScalableBloomFilter<T>}.
+	 * <p>a bigger growth factor makes fewer stages for the same number of elements, so cheaper lookups,
+	 * but wastes more space in the last stage. a tightening ratio close to 1 makes smaller stages but
+	 * a smaller false positive probability of the first stage, 0.8 ~ 0.9 is a good choice.</p>
+	 * @param initialCapacity 	expected number of elements of the first stage
+	 * @param fpp	the false positive probability bound of the whole filter
+	 * @param growthFactor	capacity multiple of a new stage, must be >= 1
+	 * @param tighteningRatio	false positive probability multiple of a new stage, must be > 0 and < 1
+	 * @param hashFunction	hash function of elements, e.g {@link Hashing#murmur3(long)}
+	 * @return	a {@link ScalableBloomFilter}
+	 */
+	public static <T> ScalableBloomFilter<T> create(int initialCapacity, double fpp, int growthFactor,
+			double tighteningRatio, HashFunction hashFunction) {
+		if(initialCapacity <= 0) {
+			throw new IllegalArgumentException(String.format("initialCapacity (%d) must be > 0", initialCapacity));
+		}
+		if(fpp <= 0 || fpp >= 1) {
+			throw new IllegalArgumentException(String.format("fpp (%f) must be > 0 and < 1", fpp));
+		}
+		if(growthFactor < 1) {
+			throw new IllegalArgumentException(String.format("growthFactor (%d) must be >= 1", growthFactor));
+		}
+		if(tighteningRatio <= 0 || tighteningRatio >= 1) {
+			throw new IllegalArgumentException(String.format("tighteningRatio (%f) must be > 0 and < 1", tighteningRatio));
+		}
+		if(hashFunction == null) {
+			throw new NullPointerException("hash function is null");
+		}
+		return new ScalableBloomFilter<T>(initialCapacity, fpp, growthFactor, tighteningRatio, hashFunction);
+	}
+}
@@ -0,0 +1,205 @@
+package com.lee.data.structure.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.lee.data.structure.util.HashFunction;
+import com.lee.data.structure.util.Hashing;
+
+/**
+ * a cuckoo filter which grows with the number of elements instead of kicking out fingerprints,
+ * a put never causes a false negative, though a {@link #remove(Object) remove} might.
+ * <p>it is a chain of {@link CuckooFilter#createBreadthFirst(int, double) breadth-first} cuckoo filter
+ * stages, elements are put into the last stage only. once the last stage rejects an element, a new
+ * stage is chained with {@link #growthFactor} times bigger capacity and {@link #tighteningRatio} times
+ * smaller false positive probability, the same as a {@link ScalableBloomFilter}. the default ratio 0.5
+ * takes one more bit per fingerprint of every new stage.</p>
+ * <p>the stages can't be merged into one bigger table, a stored fingerprint lacks the hash bits to
+ * compute its bucket in a table with more buckets.</p>
+ * @NotThreadSafe
+ **/
+public final class ScalableCuckooFilter<T> extends AbstractFilter<T> {
+
+	/** the default capacity multiple of a new stage **/
+	private static final int DEFAULT_GROWTH_FACTOR = 2;
+
+	/** the default false positive probability multiple of a new stage, one more bit per fingerprint **/
+	private static final double DEFAULT_TIGHTENING_RATIO = 0.5;
+
+	/** the min false positive probability of a stage, so that its fingerprint is within 64 bits **/
+	private static final double MIN_STAGE_FPP = Math.scalb(1.0, -60);
+
+	/** the stages, the last one is being filled **/
+	private final List<CuckooFilter<T>> stages = new ArrayList<CuckooFilter<T>>();
+
+	/** capacity multiple of a new stage **/
+	private final int growthFactor;
+
+	/** false positive probability multiple of a new stage **/
+	private final double tighteningRatio;
+
+	/** hash function of elements, shared by all stages **/
+	private final HashFunction hashFunction;
+
+	/** expected capacity of the last stage **/
+	private long stageCapacity;
+
+	/** false positive probability of the last stage **/
+	private double stageFpp;
+
+	private ScalableCuckooFilter(int initialCapacity, double fpp, int growthFactor, double tighteningRatio, HashFunction hashFunction) {
+		this.growthFactor = growthFactor;
+		this.tighteningRatio = tighteningRatio;
+		this.hashFunction = hashFunction;
+		this.stageCapacity = initialCapacity;
+		this.stageFpp = Math.max(MIN_STAGE_FPP, fpp * (1 - tighteningRatio));	// P0, so that P0 + P0*r + P0*r^2 + ... <= fpp
+		stages.add(CuckooFilter.<T>createBreadthFirst(initialCapacity, stageFpp, hashFunction));
+	}
+
+	/**
+	 * put an element into this {@link ScalableCuckooFilter}, ensure that subsequent invocations of
+     * {@link #mightContain(element)} with the same element will always return {@code true}.
+     * <p>an element put twice is stored twice, the same as a {@link CuckooFilter}, so that it can be
+     * {@link #remove(Object) removed} as many times as it is put.</p>
+	 * @return always true, see {@link #numOfStages()} for whether a new stage has been chained
+	 */
+	@Override
+	public boolean put(T element) {
+		long[] hashCode = threadHashCode();
+		hashFunction.hash128(element, hashCode);
+		long hash1 = hashCode[0], hash2 = hashCode[1];
+		if(stages.get(stages.size() - 1).put(hash1, hash2)) { return true; }
+		grow().put(hash1, hash2);	// rejected, the last stage is unchanged
+		return true;
+	}
+
+	/** chain a new stage with bigger capacity and smaller false positive probability **/
+	private CuckooFilter<T> grow() {
+		stageCapacity = Math.min(Integer.MAX_VALUE, stageCapacity * growthFactor);
+		stageFpp = Math.max(MIN_STAGE_FPP, stageFpp * tighteningRatio);
+		CuckooFilter<T> stage = CuckooFilter.createBreadthFirst((int) stageCapacity, stageFpp, hashFunction);
+		stages.add(stage);
+		return stage;
+	}
+
+	/**
+	 * return {@code true} if the element <i>might</i> have been put in this cuckoo filter,
+     * {@code false} if this is <i>definitely</i> not the case.
+	 */
+	@Override
+	public boolean mightContain(T element) {
+		long[] hashCode = threadHashCode();
+		hashFunction.hash128(element, hashCode);
+		long hash1 = hashCode[0], hash2 = hashCode[1];
+		for(int i=stages.size()-1; i>=0; i--) {		// the last stage is the biggest one
+			if(stages.get(i).mightContain(hash1, hash2)) { return true; }
+		}
+		return false;
+	}
+
+	/**
+	 * remove the {@code element} from this {@link ScalableCuckooFilter}, the latest stage containing it first.
+	 * <p>a removal might cause a false negative: a newer stage holding a colliding fingerprint of another
+	 * element can't be told from the stage of {@code element}, so the fingerprint of the other element is
+	 * removed instead, which is missed afterwards. the newest stage is searched first, it has the smallest
+	 * false positive probability and holds most of the elements, so such a removal happens with about the
+	 * sum of the false positive probabilities of the stages newer than the one of {@code element}, below
+	 * the {@code fpp} of the whole filter.</p>
+	 * @return true if the {@code element} definitely removed from this cuckoo filter after this operation.
+	 * otherwise false, representing the {@code element} isn't exist into the filter.
+	 * @see CuckooFilter#remove(Object)
+	 */
+	public boolean remove(T element) {
+		long[] hashCode = threadHashCode();
+		hashFunction.hash128(element, hashCode);
+		long hash1 = hashCode[0], hash2 = hashCode[1];
+		for(int i=stages.size()-1; i>=0; i--) {
+			if(stages.get(i).remove(hash1, hash2)) { return true; }
+		}
+		return false;
+	}
+
+	/** return number of existed elements within all stages **/
+	public long numOfExistedElements() {
+		long count = 0;
+		for(CuckooFilter<T> stage : stages) { count += stage.numOfExistedElements(); }
+		return count;
+	}
+
+	/** return the number of chained stages **/
+	public int numOfStages() { return stages.size(); }
+
+	/** the fill ratio is of all stages, each one weighted by its size, nothing is kicked out **/
+	@Override
+	public FilterStats stats() {
+		long byteSize = 0;
+		double usedBytes = 0, p = 1;
+		for(CuckooFilter<T> stage : stages) {
+			FilterStats stats = stage.stats();
+			byteSize += stats.byteSize();
+			usedBytes += stats.fillRatio() * stats.byteSize();
+			p *= (1 - stats.currentFpp());
+		}
+		return new FilterStats(usedBytes / byteSize, 1 - p, 0, byteSize);
+	}
+
+	/** return the hash function of elements within this ScalableCuckooFilter **/
+	@Override
+	public HashFunction hashFunction() { return hashFunction; }
+
+	/**
+	 * create a {@link ScalableCuckooFilter ScalableCuckooFilter<T>} with the expected number of element
+     * of the first stage and the false positive probability bound.
+     * <p>elements are hashed by {@link Hashing#murmur3()}, whose seed differs between JVMs</p>
+	 * @param initialCapacity 	expected number of elements of the first stage
+	 * @param fpp	the false positive probability bound of the whole filter
+	 * @return	a {@link ScalableCuckooFilter}
+	 */
+	public static <T> ScalableCuckooFilter<T> create(int initialCapacity, double fpp) {
+		return create(initialCapacity, fpp, DEFAULT_GROWTH_FACTOR, DEFAULT_TIGHTENING_RATIO, Hashing.murmur3());
+	}
+
+	/**
+	 * create a {@link ScalableCuckooFilter ScalableCuckooFilter<T>} with the expected number of element of the first stage,
+     * the false positive probability bound and the hash function of elements.
+	 * @param initialCapacity 	expected number of elements of the first stage
+	 * @param fpp	the false positive probability bound of the whole filter
+	 * @param hashFunction	hash function of elements, e.g {@link Hashing#murmur3(long)}
+	 * @return	a {@link ScalableCuckooFilter}
+	 */
+	public static <T> ScalableCuckooFilter<T> create(int initialCapacity, double fpp, HashFunction hashFunction) {
+		return create(initialCapacity, fpp, DEFAULT_GROWTH_FACTOR, DEFAULT_TIGHTENING_RATIO, hashFunction);
+	}
+
+	/**
+	 * create a {@link ScalableCuckooFilter ScalableCuckooFilter<T>}.
+	 * <p>the false positive probability of a stage is never below 2^-60, so that its fingerprint is
+	 * within 64 bits, the bound of the whole filter doesn't hold beyond that.</p>
+	 * @param initialCapacity 	expected number of elements of the first stage
+	 * @param fpp	the false positive probability bound of the whole filter
+	 * @param growthFactor	capacity multiple of a new stage, must be >= 1
+	 * @param tighteningRatio	false positive probability multiple of a new stage, must be > 0 and < 1
+	 * @param hashFunction	hash function of elements, e.g {@link Hashing#murmur3(long)}
+	 * @return	a {@link ScalableCuckooFilter}
+	 * @see ScalableBloomFilter#create(int, double, int, double, HashFunction)
+	 */
+	public static <T> ScalableCuckooFilter<T> create(int initialCapacity, double fpp, int growthFactor,
+			double tighteningRatio, HashFunction hashFunction) {
+		if(initialCapacity <= 0) {
+			throw new IllegalArgumentException(String.format("initialCapacity (%d) must be > 0", initialCapacity));
+		}
+		if(fpp <= 0 || fpp >= 1) {
+			throw new IllegalArgumentException(String.format("fpp (%f) must be > 0 and < 1", fpp));
+		}
+		if(growthFactor < 1) {
+			throw new IllegalArgumentException(String.format("growthFactor (%d) must be >= 1", growthFactor));
+		}
+		if(tighteningRatio <= 0 || tighteningRatio >= 1) {
+			throw new IllegalArgumentException(String.format("tighteningRatio (%f) must be > 0 and < 1", tighteningRatio));
+		}
+		if(hashFunction == null) {
+			throw new NullPointerException("hash function is null");
+		}
+		return new ScalableCuckooFilter<T>(initialCapacity, fpp, growthFactor, tighteningRatio, hashFunction);
+	}
+}
@@ -2,6 +2,7 @@ package com.lee.data.structure.map;
 
 import com.lee.data.structure.ImmutableEntry;
 import com.lee.data.structure.Pair;
+import com.lee.data.structure.util.HashFunction;
 
 import java.util.Deque;
 import java.util.Iterator;
@@ -29,7 +30,22 @@ public class HashTreeMap<K, V> implements Iterable<ImmutableEntry<K, V>> {
 	private int size;
 	private HashTreeNode<K, V> root;
 	
-	public HashTreeMap() { clear(); }
+	public HashTreeMap() {
+		this.hashFunction = null;
+		clear();
+	}
+	
+	/**
+	 * 使用指定的{@link HashFunction}打散key的hashCode，相同seed的map在任何JVM中具有相同的树结构
+	 * @param hashFunction	e.g {@link com.lee.data.structure.util.Hashing#murmur3(long)}
+	 */
+	public HashTreeMap(HashFunction hashFunction) {
+		if(hashFunction == null) {
+			throw new NullPointerException("hash function is null");
+		}
+		this.hashFunction = hashFunction;
+		clear();
+	}
 	
 	private int nextPrime(int currentPrime) {
 		int i = currentPrime + 1;
@@ -143,14 +159,21 @@ public class HashTreeMap<K, V> implements Iterable<ImmutableEntry<K, V>> {
 	/** 防止POOR的hash函数碰撞攻击，导致OOM **/
 	private final int hashSeed = (int)System.currentTimeMillis();
 	
+	/** 为null时，使用{@link #hashSeed}扰动key的hashCode **/
+	private final HashFunction hashFunction;
+	
 	private int hash(K key) {
+		if(hashFunction != null) {
+			return hashFunction.hash32(key.hashCode()) & 0x7fffffff;
+		}
 		int h = hashSeed ^ key.hashCode();
 
         // This function ensures that hashCodes that differ only by
         // constant multiples at each bit position have a bounded
         // number of collisions (approximately 8 at default load factor).
         h ^= (h >>> 20) ^ (h >>> 12);
-        return h ^ (h >>> 7) ^ (h >>> 4);
+        h = h ^ (h >>> 7) ^ (h >>> 4);
+        return h & 0x7fffffff;	// 用作子节点下标，必须非负
 	}
 	
 	public boolean containKey(K key) {
@@ -0,0 +1,149 @@
+package com.lee.data.structure.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * a {@link Hasher} buffering the encoded values, then hashing them at once by the byte entry point
+ * of its {@link HashFunction}, so that the hash codes are the same as hashing the bytes in one go,
+ * for every algorithm. the buffer is kept by a reset, a reused hasher stops allocating once it has
+ * grown to the longest sequence.
+ */
+final class BufferedHasher implements Hasher {
+
+	private static final int INITIAL_CAPACITY = 64;
+	
+	private final HashFunction hashFunction;
+	
+	private byte[] buf = new byte[INITIAL_CAPACITY];
+	
+	private int size;
+	
+	BufferedHasher(HashFunction hashFunction) {
+		this.hashFunction = hashFunction;
+	}
+	
+	@Override
+	public Hasher putBoolean(boolean value) {
+		return putByte((byte) (value ? 1 : 0));
+	}
+	
+	@Override
+	public Hasher putByte(byte value) {
+		ensureCapacity(1);
+		buf[size++] = value;
+		return this;
+	}
+	
+	@Override
+	public Hasher putShort(short value) {
+		ensureCapacity(2);
+		buf[size++] = (byte) value;
+		buf[size++] = (byte) (value >>> 8);
+		return this;
+	}
+	
+	@Override
+	public Hasher putChar(char value) {
+		ensureCapacity(2);
+		buf[size++] = (byte) value;
+		buf[size++] = (byte) (value >>> 8);
+		return this;
+	}
+	
+	@Override
+	public Hasher putInt(int value) {
+		ensureCapacity(4);
+		buf[size++] = (byte) value;
+		buf[size++] = (byte) (value >>> 8);
+		buf[size++] = (byte) (value >>> 16);
+		buf[size++] = (byte) (value >>> 24);
+		return this;
+	}
+	
+	@Override
+	public Hasher putLong(long value) {
+		ensureCapacity(8);
+		for(int i=0; i<8; i++) {
+			buf[size++] = (byte) value;
+			value >>>= 8;
+		}
+		return this;
+	}
+	
+	@Override
+	public Hasher putFloat(float value) {
+		return putInt(Float.floatToRawIntBits(value));
+	}
+	
+	@Override
+	public Hasher putDouble(double value) {
+		return putLong(Double.doubleToRawLongBits(value));
+	}
+	
+	@Override
+	public Hasher putBytes(byte[] bytes) {
+		return putBytes(bytes, 0, bytes.length);
+	}
+	
+	@Override
+	public Hasher putBytes(byte[] bytes, int off, int len) {
+		Hashing.checkBounds(bytes, off, len);
+		ensureCapacity(len);
+		System.arraycopy(bytes, off, buf, size, len);
+		size += len;
+		return this;
+	}
+	
+	@Override
+	public Hasher putBytes(ByteBuffer bytes) {
+		int len = bytes.remaining();
+		ensureCapacity(len);
+		bytes.get(buf, size, len);
+		size += len;
+		return this;
+	}
+	
+	@Override
+	public Hasher putUnencodedChars(CharSequence chars) {
+		int length = chars.length();
+		ensureCapacity(length << 1);
+		for(int i=0; i<length; i++) {
+			char c = chars.charAt(i);
+			buf[size++] = (byte) c;
+			buf[size++] = (byte) (c >>> 8);
+		}
+		return this;
+	}
+	
+	@Override
+	public <T> Hasher putObject(T object, Funnel<? super T> funnel) {
+		funnel.funnel(object, this);
+		return this;
+	}
+	
+	@Override
+	public void hash128(long[] dest) {
+		hashFunction.hash128(buf, 0, size, dest);
+		size = 0;
+	}
+	
+	@Override
+	public HashCode hash() {
+		long[] dest = new long[2];
+		hash128(dest);
+		byte[] bytes = new byte[16];
+		for(int i=0; i<16; i++) { bytes[i] = (byte) (dest[i >>> 3] >>> ((i & 7) << 3)); }
+		return new HashCode(bytes);
+	}
+	
+	private void ensureCapacity(int n) {
+		if(n > buf.length - size) {
+			int capacity = Math.max(buf.length << 1, size + n);
+			if(capacity < 0) {
+				throw new OutOfMemoryError(String.format("hasher buffer of %d bytes", (long) size + n));
+			}
+			buf = Arrays.copyOf(buf, capacity);
+		}
+	}
+}
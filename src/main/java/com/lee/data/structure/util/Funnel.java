@@ -0,0 +1,14 @@
+package com.lee.data.structure.util;
+
+/**
+ * describes how to feed the fields of a {@code T} into a {@link Hasher}, so a composite object is hashed
+ * by its content, field by field, rather than by its {@link Object#hashCode()} and without boxing a field.
+ * <p>a funnel must put the same sequence of values for two equal objects. put a length or a delimiter
+ * between variable length fields, otherwise {@code ("ab", "c")} and {@code ("a", "bc")} collide.</p>
+ * @see Hasher#putObject(Object, Funnel)
+ */
+public interface Funnel<T> {
+
+	/** put the fields of {@code from} into {@code into} **/
+	void funnel(T from, Hasher into);
+}
@@ -0,0 +1,158 @@
+package com.lee.data.structure.util;
+
+/**
+ * a {@link HashFunction} of a 64 bits algorithm, a subclass only implements the 64 bits hash codes
+ * of the primitive inputs, all the others are derived from them.
+ * <p>the second half of a 128 bits hash code is a bijective mix of the first half, so two inputs
+ * collide on 128 bits exactly when they collide on 64 bits. it doesn't matter for a filter, whose
+ * fingerprints and indexes take far fewer bits, but it saves hashing twice.</p>
+ */
+abstract class Hash64Function extends HashFunction {
+
+	/** the seed step between the 64 bits rounds of {@link #hash(Object, int)} **/
+	private static final long HASH_SEED_ADDER = 2147483647;
+	
+	Hash64Function(long seed) {
+		super(seed);
+	}
+	
+	/** the 64 bits hash code of an {@code int}, the same as its 4 little-endian bytes **/
+	abstract long hash64(long seed, int value);
+	
+	/** the 64 bits hash code of a {@code long}, the same as its 8 little-endian bytes **/
+	abstract long hash64(long seed, long value);
+	
+	/** the 64 bits hash code of the UTF-16LE code units of {@code chars} **/
+	abstract long hash64(long seed, CharSequence chars);
+	
+	/** the 64 bits hash code of {@code len} bytes of {@code bytes} began with {@code off} **/
+	final long hash64(long seed, byte[] bytes, int off, int len) {
+		Hashing.checkBounds(bytes, off, len);
+		return hash64(seed, bytes, Hashing.byteOffset(off), len);
+	}
+	
+	/** the 64 bits hash code of {@code len} bytes of {@code base} began with {@code offset}, see {@link Hashing#readLong(Object, long)} **/
+	abstract long hash64(long seed, Object base, long offset, int len);
+	
+	/**
+	 * return at least {@code numOfHashBits} bits, 64 bits per round of the {@link Hashing#hash(Object, int)
+	 * encoding} of {@code object}, the seed of a round is {@link #HASH_SEED_ADDER} bigger than the last one.
+	 */
+	@Override
+	public <T> HashCode hash(T object, int numOfHashBits) {
+		int numOfLongs = numOfHashBits <= Long.SIZE ? 1 : ((numOfHashBits - 1) / Long.SIZE + 1);
+		HashCode hashCode = new HashCode(new byte[numOfLongs * 8]);
+		hash(object, hashCode);
+		return hashCode;
+	}
+	
+	@Override
+	public <T> void hash(T object, HashCode dest) {
+		byte[] bytes = dest.asBytes();
+		// the primitive entry points hash the same as the encoding, except an empty CharSequence
+		byte[] encoded = null;
+		if(!(object instanceof Long || object instanceof Integer || object instanceof byte[]
+				|| (object instanceof CharSequence && ((CharSequence) object).length() > 0))) {
+			encoded = Hashing.bytesOf(object);
+		}
+		long seed = seed();
+		for(int index=0; index<bytes.length; index+=8) {
+			long hash;
+			if(encoded != null) {
+				hash = hash64(seed, encoded, 0, encoded.length);
+			}else if(object instanceof CharSequence) {
+				hash = hash64(seed, (CharSequence) object);
+			}else if(object instanceof Long) {
+				hash = hash64(seed, ((Long) object).longValue());
+			}else if(object instanceof Integer) {
+				hash = hash64(seed, ((Integer) object).intValue());
+			}else {
+				byte[] array = (byte[]) object;
+				hash = hash64(seed, array, 0, array.length);
+			}
+			Hashing.putLong(bytes, index, hash, 8);
+			seed += HASH_SEED_ADDER;
+		}
+	}
+	
+	@Override
+	public <T> void hash128(T object, long[] dest) {
+		long seed = seed();
+		// the final classes first, the same as Hashing.hash128(Object, long[])
+		if(object instanceof String) {
+			derive(hash64(seed, (String) object), dest);
+		}else if(object instanceof Long) {
+			derive(hash64(seed, ((Long) object).longValue()), dest);
+		}else if(object instanceof Integer) {
+			derive(hash64(seed, ((Integer) object).intValue()), dest);
+		}else if(object instanceof CharSequence) {
+			derive(hash64(seed, (CharSequence) object), dest);
+		}else if(object instanceof byte[]) {
+			byte[] bytes = (byte[]) object;
+			derive(hash64(seed, bytes, 0, bytes.length), dest);
+		}else {
+			byte[] bytes = Hashing.bytesOf(object);
+			derive(hash64(seed, bytes, 0, bytes.length), dest);
+		}
+	}
+	
+	@Override
+	public void hash128(long value, long[] dest) {
+		derive(hash64(seed(), value), dest);
+	}
+	
+	@Override
+	public void hash128(CharSequence chars, long[] dest) {
+		derive(hash64(seed(), chars), dest);
+	}
+	
+	@Override
+	public void hash128(byte[] bytes, int off, int len, long[] dest) {
+		derive(hash64(seed(), bytes, off, len), dest);
+	}
+	
+	@Override
+	void hashMemory128(Object base, long offset, int len, long[] dest) {
+		derive(hash64(seed(), base, offset, len), dest);
+	}
+	
+	@Override
+	public int hash32(int value) { return (int) hash64(seed(), value); }
+	
+	@Override
+	public int hash32(long value) { return (int) hash64(seed(), value); }
+	
+	@Override
+	public int hash32(CharSequence chars) { return (int) hash64(seed(), chars); }
+	
+	@Override
+	public int hash32(byte[] bytes, int off, int len) { return (int) hash64(seed(), bytes, off, len); }
+	
+	/** {@code dest[0]} is the 64 bits hash code, {@code dest[1]} a murmur3 finalizer of it, a bijection **/
+	private static void derive(long hash, long[] dest) {
+		dest[0] = hash;
+		long k = hash ^ 0x9E3779B97F4A7C15L;
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		dest[1] = k;
+	}
+	
+	/** four bytes of {@code chars} began with the byte {@code byteIndex} (even) as an unsigned little-endian {@code int} **/
+	static long getUnsignedInt(CharSequence chars, int byteIndex) {
+		int index = byteIndex >>> 1;
+		return ((long) chars.charAt(index)) | ((long) chars.charAt(index+1) << 16);
+	}
+	
+	/** eight bytes of {@code chars} began with the byte {@code byteIndex} (even) as a little-endian {@code long} **/
+	static long getLong(CharSequence chars, int byteIndex) {
+		return Hashing.getLong(chars, byteIndex >>> 1);
+	}
+	
+	/** four bytes of {@code base} began with {@code offset} as an unsigned little-endian {@code int} **/
+	static long readUnsignedInt(Object base, long offset) {
+		return Hashing.readInt(base, offset) & 0xffffffffL;
+	}
+}
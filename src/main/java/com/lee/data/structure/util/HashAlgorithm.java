@@ -0,0 +1,55 @@
+package com.lee.data.structure.util;
+
+/**
+ * the families of {@link HashFunction}, a hash function is an algorithm bound to a seed.
+ * <p>the {@link #id()} is written by structures saving their hash function, e.g. a saved bloom filter,
+ * so a new algorithm must take a new id, and an existed id must never change.</p>
+ */
+public enum HashAlgorithm {
+
+	/** 128 bits murmur3, see {@link Hashing#murmur3(long)} **/
+	MURMUR3(0, "murmur3") {
+		@Override
+		public HashFunction withSeed(long seed) { return new Murmur3HashFunction(seed); }
+	},
+
+	/** 64 bits xxHash, see {@link Hashing#xxHash64(long)} **/
+	XXHASH64(1, "xxhash64") {
+		@Override
+		public HashFunction withSeed(long seed) { return new XxHash64HashFunction(seed); }
+	},
+
+	/** 64 bits wyhash, see {@link Hashing#wyhash(long)} **/
+	WYHASH(2, "wyhash") {
+		@Override
+		public HashFunction withSeed(long seed) { return new WyHashFunction(seed); }
+	};
+
+	private final int id;
+	private final String alias;
+
+	private HashAlgorithm(int id, String alias) {
+		this.id = id;
+		this.alias = alias;
+	}
+
+	/** return the stable id of this algorithm, see {@link #ofId(int)} **/
+	public int id() { return id; }
+
+	/** return a {@link HashFunction} of this algorithm with a fixed {@code seed} **/
+	public abstract HashFunction withSeed(long seed);
+
+	/**
+	 * return the algorithm of {@code id}.
+	 * @throws IllegalArgumentException	if no algorithm takes {@code id}
+	 */
+	public static HashAlgorithm ofId(int id) {
+		for(HashAlgorithm algorithm : values()) {
+			if(algorithm.id == id) { return algorithm; }
+		}
+		throw new IllegalArgumentException(String.format("unknown hash algorithm id (%d)", id));
+	}
+
+	@Override
+	public String toString() { return alias; }
+}
@@ -0,0 +1,69 @@
+package com.lee.data.structure.util;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * a {@link RecursiveAction} hashing a range of keys by {@link HashFunction#hash128(Object, long[])}
+ * into a caller-provided array, split in halves until a range is small enough to outweigh the cost
+ * of a task. every key is written to its own slots, no two tasks write the same slot.
+ */
+final class HashAllTask extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	/** the max number of keys hashed by one task, a few hundreds of microseconds of short keys **/
+	static final int THRESHOLD = 1 << 12;
+
+	private final HashFunction hashFunction;
+
+	/** the keys of {@code Object}, or null if of {@link #longKeys} **/
+	private final Object[] keys;
+
+	private final long[] longKeys;
+
+	private final long[] dest;
+
+	/** true if both halves of a 128 bits hash code are kept, otherwise only the first 64 bits **/
+	private final boolean wide;
+
+	private final int from, to;
+
+	HashAllTask(HashFunction hashFunction, Object[] keys, long[] longKeys, long[] dest, boolean wide, int from, int to) {
+		this.hashFunction = hashFunction;
+		this.keys = keys;
+		this.longKeys = longKeys;
+		this.dest = dest;
+		this.wide = wide;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	protected void compute() {
+		if(to - from <= THRESHOLD) {
+			hashRange();
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		invokeAll(new HashAllTask(hashFunction, keys, longKeys, dest, wide, from, mid),
+				new HashAllTask(hashFunction, keys, longKeys, dest, wide, mid, to));
+	}
+
+	/** hash the keys in [from, to) by the calling thread **/
+	void hashRange() {
+		long[] hashCode = new long[2];
+		for(int i=from; i<to; i++) {
+			if(keys != null) {
+				hashFunction.hash128(keys[i], hashCode);
+			}else {
+				hashFunction.hash128(longKeys[i], hashCode);
+			}
+			if(wide) {
+				dest[i << 1] = hashCode[0];
+				dest[(i << 1) + 1] = hashCode[1];
+			}else {
+				dest[i] = hashCode[0];
+			}
+		}
+	}
+}
@@ -1,13 +1,38 @@
 package com.lee.data.structure.util;
 
+/**
+ * the bytes of a hash code, the accessors are views over them in little-endian order.
+ * <p>a hash code can be kept as a sink and reused, {@link HashFunction#hash(Object, HashCode)} rewrites its
+ * bytes in place, so hashing into it and reading it back allocates nothing.</p>
+ */
 public final class HashCode {
 
 	private final byte[] hashCode;
 	
+	/** two longs of a 128 bits block, kept while this hash code is reused as a sink **/
+	private long[] words;
+	
 	public HashCode(byte[] hashCode) {
 		this.hashCode = hashCode;
 	}
 	
+	/**
+	 * return a zeroed hash code of {@code (numOfHashBits-1) / 8 + 1} bytes, to be reused as the sink of
+	 * {@link HashFunction#hash(Object, HashCode)}.
+	 */
+	public static HashCode allocate(int numOfHashBits) {
+		if(numOfHashBits <= 0) {
+			throw new IllegalArgumentException(String.format("numOfHashBits (%d) must be > 0", numOfHashBits));
+		}
+		return new HashCode(new byte[(numOfHashBits - 1) / 8 + 1]);
+	}
+	
+	/** the scratch of a 128 bits block while hashing into this hash code **/
+	long[] words() {
+		if(words == null) { words = new long[2]; }
+		return words;
+	}
+	
 	/** returns the number of bits in this hash code; a positive multiple of 8 **/
 	public int bits() { return hashCode.length * 8; }
 	
@@ -153,10 +178,9 @@ public final class HashCode {
      * remaining most-significant bytes.
      */
 	public static long asLong(byte[] bytes) {
-		int size = Math.min(8, bytes.length);
+		if(bytes.length >= 8) { return Hashing.readLong(bytes, Hashing.byteOffset(0)); }
 		long value = 0;
-		switch(size) {
-		case 8: value |= ((0xffL & bytes[7]) << 56);
+		switch(bytes.length) {
 		case 7: value |= ((0xffL & bytes[6]) << 48);
 		case 6: value |= ((0xffL & bytes[5]) << 40);
 		case 5: value |= ((0xffL & bytes[4]) << 32);
@@ -190,16 +214,16 @@ public final class HashCode {
 	public static long asLong(byte[] bytes, int fromIndex) {
 		if(fromIndex < 0 || fromIndex >= bytes.length) { return 0; }
 		int size = Math.min(8, bytes.length-fromIndex);
+		if(size == 8) { return Hashing.readLong(bytes, Hashing.byteOffset(fromIndex)); }
 		long value = 0;
 		switch(size) {
-		case 8: value |= ((0xffL & bytes[7]) << 56);
-		case 7: value |= ((0xffL & bytes[6]) << 48);
-		case 6: value |= ((0xffL & bytes[5]) << 40);
-		case 5: value |= ((0xffL & bytes[4]) << 32);
-		case 4: value |= ((0xffL & bytes[3]) << 24);
-		case 3: value |= ((0xffL & bytes[2]) << 16);
-		case 2: value |= ((0xffL & bytes[1]) << 8);
-		case 1: value |= (0xffL & bytes[0]);
+		case 7: value |= ((0xffL & bytes[fromIndex+6]) << 48);
+		case 6: value |= ((0xffL & bytes[fromIndex+5]) << 40);
+		case 5: value |= ((0xffL & bytes[fromIndex+4]) << 32);
+		case 4: value |= ((0xffL & bytes[fromIndex+3]) << 24);
+		case 3: value |= ((0xffL & bytes[fromIndex+2]) << 16);
+		case 2: value |= ((0xffL & bytes[fromIndex+1]) << 8);
+		case 1: value |= (0xffL & bytes[fromIndex]);
 		}
 		return value;
 	}
@@ -0,0 +1,188 @@
+package com.lee.data.structure.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * a hash function bound to a fixed seed, the hash codes only depend on the input, the {@link #algorithm()}
+ * and the {@link #seed()}, so structures built in one JVM can be checked in another one with the same
+ * algorithm and seed. get an instance by {@link Hashing#murmur3(long)}, {@link Hashing#xxHash64(long)},
+ * {@link Hashing#wyhash(long)} or {@link HashAlgorithm#withSeed(long)}.
+ * <p>a 64 bits algorithm derives the second half of a 128 bits hash code from the first one.</p>
+ * @ThreadSafe
+ */
+public abstract class HashFunction {
+
+	private final long seed;
+	
+	HashFunction(long seed) {
+		this.seed = seed;
+	}
+	
+	/** return the seed of this hash function **/
+	public final long seed() { return seed; }
+	
+	/** return the algorithm of this hash function **/
+	public abstract HashAlgorithm algorithm();
+	
+	/** same as {@link Hashing#hash(Object, int)}, but with the algorithm and seed of this hash function **/
+	public abstract <T> HashCode hash(T object, int numOfHashBits);
+	
+	/**
+	 * same as {@link #hash(Object, int)} of {@code dest.bits()} bits, but into the bytes of {@code dest}, a sink
+	 * kept by the caller, e.g. of {@link HashCode#allocate(int)}. the bytes are the same as the first ones of
+	 * {@link #hash(Object, int)}, and {@link CharSequence}, {@link Long}, {@link Integer} and {@code byte[]}
+	 * are hashed without allocation.
+	 */
+	public abstract <T> void hash(T object, HashCode dest);
+	
+	/** same as {@link Hashing#hash128(Object, long[])}, but with the algorithm and seed of this hash function **/
+	public abstract <T> void hash128(T object, long[] dest);
+	
+	/** the 128 bits hash code of a {@code long}, see {@link Hashing#hash128(Object, long[])} for {@code dest} **/
+	public abstract void hash128(long value, long[] dest);
+	
+	/** the 128 bits hash code of the UTF-16LE code units of {@code chars}, see {@link Hashing#hash128(Object, long[])} for {@code dest} **/
+	public abstract void hash128(CharSequence chars, long[] dest);
+	
+	/** the 128 bits hash code of {@code len} bytes of {@code bytes} began with {@code off}, see {@link Hashing#hash128(Object, long[])} for {@code dest} **/
+	public abstract void hash128(byte[] bytes, int off, int len, long[] dest);
+	
+	/**
+	 * the 128 bits hash code of the remaining bytes of {@code buf}, the same as of a {@code byte[]} of
+	 * them, see {@link Hashing#hash128(Object, long[])} for {@code dest}. the position of {@code buf}
+	 * is unchanged.
+	 * <p>a direct or mapped buffer is read in place, 8 bytes at a time, without copying it into heap,
+	 * unless the platform can't read it raw, see {@link #hashMemory128(long, int, long[])}.</p>
+	 */
+	public void hash128(ByteBuffer buf, long[] dest) {
+		int len = buf.remaining();
+		if(buf.hasArray()) {
+			hash128(buf.array(), buf.arrayOffset() + buf.position(), len, dest);
+			return;
+		}
+		long address = Hashing.RAW_BYTES ? PlatformDependent.directBufferAddress(buf) : 0;
+		if(address != 0) {
+			hashMemory128(null, address + buf.position(), len, dest);
+		}else {	// a read-only heap buffer, or the platform can't read a direct buffer raw
+			byte[] bytes = new byte[len];
+			buf.duplicate().get(bytes);
+			hash128(bytes, 0, len, dest);
+		}
+	}
+	
+	/**
+	 * the 128 bits hash code of {@code len} bytes of the off-heap memory began with {@code address},
+	 * e.g. of {@link PlatformDependent#allocateMemory(long)}, the same as of a {@code byte[]} of them.
+	 * the memory is read in place, the caller must keep it allocated while hashing.
+	 * @throws UnsupportedOperationException	if the platform can't read memory by {@code sun.misc.Unsafe}
+	 * at any byte offset
+	 */
+	public void hashMemory128(long address, int len, long[] dest) {
+		if(address == 0 || len < 0) {
+			throw new IllegalArgumentException(String.format("illegal address (%d) or len (%d)", address, len));
+		}
+		if(!Hashing.RAW_BYTES) {
+			throw new UnsupportedOperationException("unsupported opertaion: hashMemory128(long, int, long[])");
+		}
+		hashMemory128(null, address, len, dest);
+	}
+	
+	/** the 128 bits hash code of {@code len} bytes of {@code base} began with {@code offset}, see {@link Hashing#readLong(Object, long)} **/
+	abstract void hashMemory128(Object base, long offset, int len, long[] dest);
+	
+	/**
+	 * hash all the {@code keys} in parallel by the common {@link ForkJoinPool}, {@code dest[2*i]} and
+	 * {@code dest[2*i+1]} hold the 128 bits hash code of {@code keys[i]}, the same as of
+	 * {@link #hash128(Object, long[])}, so that a bulk builder consumes the hash codes in order.
+	 * @see #hashAll(Object[], long[], ForkJoinPool)
+	 */
+	public <T> void hashAll(T[] keys, long[] dest) {
+		hashAll(keys, dest, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * same as {@link #hashAll(Object[], long[])}, but by the tasks of {@code pool}, a pool of its own keeps a
+	 * long bulk hashing from starving the other users of the common pool. the keys must not be changed while
+	 * hashing.
+	 * <p>a few thousands of keys or less are hashed by the calling thread, without a task.</p>
+	 */
+	public <T> void hashAll(T[] keys, long[] dest, ForkJoinPool pool) {
+		checkHashAll(keys.length, 2, dest, pool);
+		invoke(new HashAllTask(this, keys, null, dest, true, 0, keys.length), keys.length, pool);
+	}
+	
+	/** same as {@link #hashAll(Object[], long[])}, of the {@code long} keys by {@link #hash128(long, long[])} **/
+	public void hashAll(long[] keys, long[] dest) {
+		hashAll(keys, dest, ForkJoinPool.commonPool());
+	}
+	
+	/** same as {@link #hashAll(Object[], long[], ForkJoinPool)}, of the {@code long} keys by {@link #hash128(long, long[])} **/
+	public void hashAll(long[] keys, long[] dest, ForkJoinPool pool) {
+		checkHashAll(keys.length, 2, dest, pool);
+		invoke(new HashAllTask(this, null, keys, dest, true, 0, keys.length), keys.length, pool);
+	}
+	
+	/**
+	 * same as {@link #hashAll(Object[], long[])}, but only the first 64 bits of every hash code are kept,
+	 * {@code dest[i]} for {@code keys[i]}, half the memory of a builder which needs no more bits.
+	 */
+	public <T> void hashAll64(T[] keys, long[] dest) {
+		hashAll64(keys, dest, ForkJoinPool.commonPool());
+	}
+	
+	/** same as {@link #hashAll64(Object[], long[])}, but by the tasks of {@code pool} **/
+	public <T> void hashAll64(T[] keys, long[] dest, ForkJoinPool pool) {
+		checkHashAll(keys.length, 1, dest, pool);
+		invoke(new HashAllTask(this, keys, null, dest, false, 0, keys.length), keys.length, pool);
+	}
+	
+	private static void checkHashAll(int numOfKeys, int wordsPerKey, long[] dest, ForkJoinPool pool) {
+		if(dest.length < (long) numOfKeys * wordsPerKey) {
+			throw new IllegalArgumentException(String.format("dest length (%d) must be >= %d", dest.length, (long) numOfKeys * wordsPerKey));
+		}
+		if(pool == null) {
+			throw new NullPointerException("fork join pool is null");
+		}
+	}
+	
+	/** a small batch is hashed by the calling thread, a task switch would cost more than the hashing **/
+	private static void invoke(HashAllTask task, int numOfKeys, ForkJoinPool pool) {
+		if(numOfKeys <= HashAllTask.THRESHOLD) {
+			task.hashRange();
+		}else {
+			pool.invoke(task);
+		}
+	}
+	
+	/**
+	 * return a new {@link Hasher} of this hash function, to hash a sequence of values incrementally,
+	 * e.g. the fields of a composite key by a {@link Funnel}.
+	 */
+	public Hasher newHasher() { return new BufferedHasher(this); }
+	
+	/** the 32 bits hash code of an {@code int} **/
+	public abstract int hash32(int value);
+	
+	/** the 32 bits hash code of a {@code long} **/
+	public abstract int hash32(long value);
+	
+	/** the 32 bits hash code of the UTF-16LE code units of {@code chars} **/
+	public abstract int hash32(CharSequence chars);
+	
+	/** the 32 bits hash code of {@code len} bytes of {@code bytes} began with {@code off} **/
+	public abstract int hash32(byte[] bytes, int off, int len);
+	
+	@Override
+	public final int hashCode() { return 31 * algorithm().id() + (int) (seed ^ (seed >>> 32)); }
+	
+	@Override
+	public final boolean equals(Object obj) {
+		if(!(obj instanceof HashFunction)) { return false; }
+		HashFunction that = (HashFunction) obj;
+		return that.algorithm() == algorithm() && that.seed == seed;
+	}
+	
+	@Override
+	public final String toString() { return algorithm() + "(" + seed + ")"; }
+}
@@ -0,0 +1,57 @@
+package com.lee.data.structure.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * an incremental hash of a sequence of values, get one by {@link HashFunction#newHasher()}. the values
+ * are encoded in little-endian order, chars as UTF-16LE code units, so putting a single {@code long},
+ * {@code int} or {@link CharSequence} hashes the same as the primitive entry points of its {@link HashFunction},
+ * e.g. {@code newHasher().putLong(x).hash128(dest)} is {@code hash128(x, dest)}.
+ * <p>{@link #hash128(long[])} and {@link #hash()} reset the hasher, so a hasher can be kept and reused
+ * for the next value without allocation.</p>
+ * @NotThreadSafe
+ */
+public interface Hasher {
+
+	/** put a {@code boolean} as a byte of 1 or 0 **/
+	Hasher putBoolean(boolean value);
+	
+	Hasher putByte(byte value);
+	
+	Hasher putShort(short value);
+	
+	Hasher putChar(char value);
+	
+	Hasher putInt(int value);
+	
+	Hasher putLong(long value);
+	
+	/** put a {@code float} as the {@code int} of {@link Float#floatToRawIntBits(float)} **/
+	Hasher putFloat(float value);
+	
+	/** put a {@code double} as the {@code long} of {@link Double#doubleToRawLongBits(double)} **/
+	Hasher putDouble(double value);
+	
+	Hasher putBytes(byte[] bytes);
+	
+	/** put {@code len} bytes of {@code bytes} began with {@code off} **/
+	Hasher putBytes(byte[] bytes, int off, int len);
+	
+	/** put the remaining bytes of {@code buf}, its position is advanced to its limit **/
+	Hasher putBytes(ByteBuffer buf);
+	
+	/** put the UTF-16LE code units of {@code chars}, without a length, see {@link Funnel} **/
+	Hasher putUnencodedChars(CharSequence chars);
+	
+	/** put the fields of {@code object} by {@code funnel} **/
+	<T> Hasher putObject(T object, Funnel<? super T> funnel);
+	
+	/**
+	 * compute the 128 bits hash code of the values put into {@code dest}, see
+	 * {@link Hashing#hash128(Object, long[])} for {@code dest}, then reset this hasher.
+	 */
+	void hash128(long[] dest);
+	
+	/** same as {@link #hash128(long[])}, but return the 128 bits hash code as a {@link HashCode} **/
+	HashCode hash();
+}
@@ -11,40 +11,437 @@ public final class Hashing {
 	
 	private static final long HASH_SEED_ADDER = 2147483647;		// max prime number within int range
 	
+	private static final HashFunction DEFAULT_HASH_FUNCTION = new Murmur3HashFunction(GOOD_HASH_SEED);
+	
+	private static final HashFunction DEFAULT_XXHASH64_FUNCTION = new XxHash64HashFunction(GOOD_HASH_SEED);
+	
+	private static final HashFunction DEFAULT_WYHASH_FUNCTION = new WyHashFunction(GOOD_HASH_SEED);
+	
 	/**
 	 * compute a hash code of {@code object} with {@code numOfHashBits} bits.
 	 * if {@code numOfHashBits} isn't positive multiple of 8, round it, then
 	 * the return {@link HashCode} contain {@code (numOfHashBits-1) / 8 + 1}
 	 * bytes, and you can get the {@code numOfHashBits} number of least-significant bits.
-	 * 
+	 * <p>arrays are hashed by their elements, an object of any other class than primitives,
+	 * {@link CharSequence}, {@link Date} and {@link Calendar} by its {@link Object#hashCode()},
+	 * hash its fields by a {@link Hasher} and a {@link Funnel} instead.</p>
 	 * 
 	 * @param object	to be computed object
 	 * @param numOfHashBits		expected number of bits in hash code
 	 * @return	hash code with {@code (numOfHashBits-1) / 8 + 1} bytes
 	 */
 	public static <T> HashCode hash(T object, int numOfHashBits) {
+		return hash(GOOD_HASH_SEED, object, numOfHashBits);
+	}
+	
+	/**
+	 * return a murmur3 {@link HashFunction} with the seed of this JVM, it hashes the same as the
+	 * static methods of {@link Hashing}, but differently from any other JVM.
+	 * <p>use {@link #murmur3(long)} for a hash code which must outlive the JVM.</p>
+	 */
+	public static HashFunction murmur3() { return DEFAULT_HASH_FUNCTION; }
+	
+	/**
+	 * return a murmur3 {@link HashFunction} with a fixed {@code seed}, the same seed always
+	 * produces the same hash codes, in any JVM.
+	 */
+	public static HashFunction murmur3(long seed) { return new Murmur3HashFunction(seed); }
+	
+	/**
+	 * return a 64 bits xxHash {@link HashFunction} with the seed of this JVM.
+	 * <p>use {@link #xxHash64(long)} for a hash code which must outlive the JVM.</p>
+	 */
+	public static HashFunction xxHash64() { return DEFAULT_XXHASH64_FUNCTION; }
+	
+	/**
+	 * return a 64 bits xxHash {@link HashFunction} with a fixed {@code seed}, it hashes bytes the same
+	 * as XXH64 of the reference implementation, and is faster than murmur3 on long inputs.
+	 */
+	public static HashFunction xxHash64(long seed) { return new XxHash64HashFunction(seed); }
+	
+	/**
+	 * return a 64 bits wyhash {@link HashFunction} with the seed of this JVM.
+	 * <p>use {@link #wyhash(long)} for a hash code which must outlive the JVM.</p>
+	 */
+	public static HashFunction wyhash() { return DEFAULT_WYHASH_FUNCTION; }
+	
+	/**
+	 * return a 64 bits wyhash {@link HashFunction} with a fixed {@code seed}, it hashes bytes the same
+	 * as wyhash (final version 4) of the reference implementation, and is the fastest one on short keys.
+	 */
+	public static HashFunction wyhash(long seed) { return new WyHashFunction(seed); }
+	
+	static <T> HashCode hash(long seed, T object, int numOfHashBits) {
 		int byteCount = numOfHashBits <= 8 ? 1 : ((numOfHashBits - 1) / 8 + 1);
+		int size;	// whole blocks
 		if(byteCount <= Murmur3_32Hasher.CHUNK_SIZE) {
-			return new HashCode(new Murmur3_32Hasher(GOOD_HASH_SEED).hashObject(object));
+			size = Murmur3_32Hasher.CHUNK_SIZE;
 		}else if(byteCount <= Murmur3_128Hasher.CHUNK_SIZE) {
-			return new HashCode(new Murmur3_128Hasher(GOOD_HASH_SEED).hashObject(object));
+			size = Murmur3_128Hasher.CHUNK_SIZE;
 		}else {
 			int _128Cnt = byteCount / Murmur3_128Hasher.CHUNK_SIZE;
-			byteCount %= Murmur3_128Hasher.CHUNK_SIZE;
-			int _32Cnt = (byteCount-1) / Murmur3_32Hasher.CHUNK_SIZE + 1;
-			ByteBuffer buf = ByteBuffer.allocate(_128Cnt * Murmur3_128Hasher.CHUNK_SIZE + _32Cnt * Murmur3_32Hasher.CHUNK_SIZE)
-					.order(ByteOrder.LITTLE_ENDIAN);
-			long seed = GOOD_HASH_SEED;
-			for(int i =0; i<_128Cnt; i++) {
-				buf.put(new Murmur3_128Hasher(seed).hashObject(object));
-				seed += HASH_SEED_ADDER;
+			int _32Cnt = (byteCount % Murmur3_128Hasher.CHUNK_SIZE - 1) / Murmur3_32Hasher.CHUNK_SIZE + 1;
+			size = _128Cnt * Murmur3_128Hasher.CHUNK_SIZE + _32Cnt * Murmur3_32Hasher.CHUNK_SIZE;
+		}
+		HashCode hashCode = new HashCode(new byte[size]);
+		hash(seed, object, byteCount, hashCode);
+		return hashCode;
+	}
+	
+	/**
+	 * same as {@link #hash(Object, int)} of {@code dest.bits()} bits, but into the bytes of {@code dest},
+	 * so a {@link HashCode} kept by the caller is reused for every object, e.g. of {@link HashCode#allocate(int)}.
+	 * <p>{@link CharSequence}, {@link Long}, {@link Integer} and {@code byte[]} are hashed without allocation.</p>
+	 */
+	public static <T> void hash(T object, HashCode dest) {
+		hash(GOOD_HASH_SEED, object, dest.asBytes().length, dest);
+	}
+	
+	/**
+	 * fill the bytes of {@code dest} by the murmur3 blocks of a {@code byteCount} bytes hash code, a 32 bits
+	 * block for up to 4 bytes, a 128 bits block for up to 16 bytes, otherwise 128 bits blocks followed by
+	 * 32 bits blocks, each block with a {@link #HASH_SEED_ADDER} bigger seed than the last one.
+	 */
+	static <T> void hash(long seed, T object, int byteCount, HashCode dest) {
+		byte[] bytes = dest.asBytes();
+		if(byteCount <= Murmur3_32Hasher.CHUNK_SIZE) {
+			putLong(bytes, 0, murmur3_32Of(seed, object) & 0xffffffffL, Murmur3_32Hasher.CHUNK_SIZE);
+			return;
+		}
+		long[] words = dest.words();
+		int _128Cnt = byteCount <= Murmur3_128Hasher.CHUNK_SIZE ? 1 : byteCount / Murmur3_128Hasher.CHUNK_SIZE;
+		int index = 0;
+		for(int i=0; i<_128Cnt; i++) {
+			murmur3_128Of(seed, object, words);
+			putLong(bytes, index, words[0], 8);
+			putLong(bytes, index+8, words[1], 8);
+			index += Murmur3_128Hasher.CHUNK_SIZE;
+			seed += HASH_SEED_ADDER;
+		}
+		for(; index<bytes.length; index+=Murmur3_32Hasher.CHUNK_SIZE) {
+			putLong(bytes, index, murmur3_32Of(seed, object) & 0xffffffffL, Murmur3_32Hasher.CHUNK_SIZE);
+			seed += HASH_SEED_ADDER;
+		}
+	}
+	
+	/** the same as a {@link Murmur3_32Hasher} of {@code object}, by the primitive entry points if possible **/
+	private static <T> int murmur3_32Of(long seed, T object) {
+		if(object instanceof String) {
+			String str = (String) object;
+			if(str.length() > 0) { return murmur3_32(seed, str); }	// the encoding of an empty one is a zero char
+		}else if(object instanceof Long) {
+			return murmur3_32(seed, ((Long) object).longValue());
+		}else if(object instanceof Integer) {
+			return murmur3_32(seed, ((Integer) object).intValue());
+		}else if(object instanceof CharSequence) {
+			CharSequence chars = (CharSequence) object;
+			if(chars.length() > 0) { return murmur3_32(seed, chars); }
+		}else if(object instanceof byte[]) {
+			byte[] bytes = (byte[]) object;
+			return murmur3_32(seed, bytes, 0, bytes.length);
+		}
+		return getInt(new Murmur3_32Hasher(seed).hashObject(object), 0);
+	}
+	
+	/** the same as a {@link Murmur3_128Hasher} of {@code object}, by the primitive entry points if possible **/
+	private static <T> void murmur3_128Of(long seed, T object, long[] dest) {
+		if(object instanceof String) {
+			String str = (String) object;
+			if(str.length() > 0) { murmur3_128(seed, str, dest); return; }
+		}else if(object instanceof Long) {
+			murmur3_128(seed, ((Long) object).longValue(), dest);
+			return;
+		}else if(object instanceof Integer) {
+			murmur3_128(seed, ((Integer) object).intValue(), dest);
+			return;
+		}else if(object instanceof CharSequence) {
+			CharSequence chars = (CharSequence) object;
+			if(chars.length() > 0) { murmur3_128(seed, chars, dest); return; }
+		}else if(object instanceof byte[]) {
+			byte[] bytes = (byte[]) object;
+			murmur3_128(seed, bytes, 0, bytes.length, dest);
+			return;
+		}
+		byte[] bytes = new Murmur3_128Hasher(seed).hashObject(object);
+		dest[0] = getLong(bytes, 0);
+		dest[1] = getLong(bytes, 8);
+	}
+	
+	/**
+	 * compute the 128 bits murmur3 hash code of {@code object} into {@code dest}, {@code dest[0]}
+	 * holds the first 64 bits and {@code dest[1]} the last 64 bits in little-endian order.
+	 * <p>{@link CharSequence}, {@link Long}, {@link Integer} and {@code byte[]} are hashed by the
+	 * allocation-free primitive entry points, any other object falls back to {@link #hash(Object, int)}.</p>
+	 */
+	public static <T> void hash128(T object, long[] dest) {
+		hash128(GOOD_HASH_SEED, object, dest);
+	}
+	
+	/**
+	 * hash all the {@code keys} by {@link #hash128(Object, long[])} in parallel, {@code dest[2*i]} and
+	 * {@code dest[2*i+1]} hold the hash code of {@code keys[i]}.
+	 * @see HashFunction#hashAll(Object[], long[], java.util.concurrent.ForkJoinPool)
+	 */
+	public static <T> void hashAll(T[] keys, long[] dest) {
+		DEFAULT_HASH_FUNCTION.hashAll(keys, dest);
+	}
+	
+	/** same as {@link #hashAll(Object[], long[])}, of the {@code long} keys by {@link #murmur3_128(long, long[])} **/
+	public static void hashAll(long[] keys, long[] dest) {
+		DEFAULT_HASH_FUNCTION.hashAll(keys, dest);
+	}
+	
+	static <T> void hash128(long seed, T object, long[] dest) {
+		// the final classes first, an exact class compare, a missed interface check scans the super types
+		if(object instanceof String) {
+			murmur3_128(seed, (String) object, dest);
+		}else if(object instanceof Long) {
+			murmur3_128(seed, ((Long) object).longValue(), dest);
+		}else if(object instanceof Integer) {
+			murmur3_128(seed, ((Integer) object).intValue(), dest);
+		}else if(object instanceof CharSequence) {
+			murmur3_128(seed, (CharSequence) object, dest);
+		}else if(object instanceof byte[]) {
+			byte[] bytes = (byte[]) object;
+			murmur3_128(seed, bytes, 0, bytes.length, dest);
+		}else {
+			byte[] bytes = new Murmur3_128Hasher(seed).hashObject(object);
+			dest[0] = getLong(bytes, 0);
+			dest[1] = getLong(bytes, 8);
+		}
+	}
+	
+	/*
+	 * allocation-free primitive entry points, the input is encoded in little-endian order
+	 * (chars as UTF-16LE code units) which is the same encoding as hash(Object, int) uses,
+	 * so that a boxed primitive or a non-empty CharSequence has the same hash code in both ways.
+	 */
+	
+	/** the 32 bits murmur3 hash code of an {@code int} **/
+	public static int murmur3_32(int value) {
+		return murmur3_32(GOOD_HASH_SEED, value);
+	}
+	
+	/** the 32 bits murmur3 hash code of a {@code long} **/
+	public static int murmur3_32(long value) {
+		return murmur3_32(GOOD_HASH_SEED, value);
+	}
+	
+	/** the 32 bits murmur3 hash code of the UTF-16LE code units of {@code chars} **/
+	public static int murmur3_32(CharSequence chars) {
+		return murmur3_32(GOOD_HASH_SEED, chars);
+	}
+	
+	/** the 32 bits murmur3 hash code of {@code len} bytes of {@code bytes} began with {@code off} **/
+	public static int murmur3_32(byte[] bytes, int off, int len) {
+		return murmur3_32(GOOD_HASH_SEED, bytes, off, len);
+	}
+	
+	/** the 128 bits murmur3 hash code of an {@code int}, see {@link #hash128(Object, long[])} for {@code dest} **/
+	public static void murmur3_128(int value, long[] dest) {
+		murmur3_128(GOOD_HASH_SEED, value, dest);
+	}
+	
+	/** the 128 bits murmur3 hash code of a {@code long}, see {@link #hash128(Object, long[])} for {@code dest} **/
+	public static void murmur3_128(long value, long[] dest) {
+		murmur3_128(GOOD_HASH_SEED, value, dest);
+	}
+	
+	/**
+	 * the 128 bits murmur3 hash code of the UTF-16LE code units of {@code chars},
+	 * see {@link #hash128(Object, long[])} for {@code dest}
+	 */
+	public static void murmur3_128(CharSequence chars, long[] dest) {
+		murmur3_128(GOOD_HASH_SEED, chars, dest);
+	}
+	
+	/**
+	 * the 128 bits murmur3 hash code of {@code len} bytes of {@code bytes} began with {@code off},
+	 * see {@link #hash128(Object, long[])} for {@code dest}
+	 */
+	public static void murmur3_128(byte[] bytes, int off, int len, long[] dest) {
+		murmur3_128(GOOD_HASH_SEED, bytes, off, len, dest);
+	}
+	
+	static int murmur3_32(long seed, int value) {
+		int h1 = Murmur3_32Hasher.mixH1((int) seed, Murmur3_32Hasher.mixK1(value));
+		return Murmur3_32Hasher.fmix(h1, 4);
+	}
+	
+	static int murmur3_32(long seed, long value) {
+		int h1 = Murmur3_32Hasher.mixH1((int) seed, Murmur3_32Hasher.mixK1((int) value));
+		h1 = Murmur3_32Hasher.mixH1(h1, Murmur3_32Hasher.mixK1((int) (value >>> 32)));
+		return Murmur3_32Hasher.fmix(h1, 8);
+	}
+	
+	static int murmur3_32(long seed, CharSequence chars) {
+		int h1 = (int) seed;
+		int length = chars.length();
+		for(int i=1; i<length; i+=2) {
+			int k1 = chars.charAt(i-1) | (chars.charAt(i) << 16);
+			h1 = Murmur3_32Hasher.mixH1(h1, Murmur3_32Hasher.mixK1(k1));
+		}
+		if((length & 1) == 1) {
+			h1 ^= Murmur3_32Hasher.mixK1(chars.charAt(length-1));
+		}
+		return Murmur3_32Hasher.fmix(h1, 2*length);
+	}
+	
+	static int murmur3_32(long seed, byte[] bytes, int off, int len) {
+		checkBounds(bytes, off, len);
+		int h1 = (int) seed;
+		int end = off + (len & ~3);
+		for(int i=off; i<end; i+=4) {
+			h1 = Murmur3_32Hasher.mixH1(h1, Murmur3_32Hasher.mixK1(getInt(bytes, i)));
+		}
+		int k1 = 0;
+		for(int i=end, shift=0; i<off+len; i++, shift+=8) {
+			k1 ^= (0xff & bytes[i]) << shift;
+		}
+		h1 ^= Murmur3_32Hasher.mixK1(k1);
+		return Murmur3_32Hasher.fmix(h1, len);
+	}
+	
+	static void murmur3_128(long seed, int value, long[] dest) {
+		long h1 = seed ^ Murmur3_128Hasher.mixK1(0xffffffffL & value);
+		Murmur3_128Hasher.makeHash(h1, seed, 4, dest);
+	}
+	
+	static void murmur3_128(long seed, long value, long[] dest) {
+		long h1 = seed ^ Murmur3_128Hasher.mixK1(value);
+		Murmur3_128Hasher.makeHash(h1, seed, 8, dest);
+	}
+	
+	static void murmur3_128(long seed, CharSequence chars, long[] dest) {
+		long h1 = seed, h2 = seed;
+		int length = chars.length();
+		int i = 0;
+		for(; i+8<=length; i+=8) {	// 8 chars per 16 bytes chunk
+			long k1 = getLong(chars, i);
+			long k2 = getLong(chars, i+4);
+			h1 = Murmur3_128Hasher.mixH1(h1, h2, k1);
+			h2 = Murmur3_128Hasher.mixH2(h1, h2, k2);
+		}
+		int remain = length - i;
+		if(remain > 0) {
+			long k1 = 0, k2 = 0;
+			for(int j=0; j<remain; j++) {
+				long c = chars.charAt(i+j);
+				if(j < 4) { k1 |= c << (j << 4); }else { k2 |= c << ((j-4) << 4); }
 			}
-			for(int i =0; i<_32Cnt; i++) {
-				buf.put(new Murmur3_32Hasher(seed).hashObject(object));
-				seed += HASH_SEED_ADDER;
+			h1 ^= Murmur3_128Hasher.mixK1(k1);
+			h2 ^= Murmur3_128Hasher.mixK2(k2);
+		}
+		Murmur3_128Hasher.makeHash(h1, h2, 2*length, dest);
+	}
+	
+	static void murmur3_128(long seed, byte[] bytes, int off, int len, long[] dest) {
+		checkBounds(bytes, off, len);
+		murmur3_128(seed, bytes, byteOffset(off), len, dest);
+	}
+	
+	/** the 128 bits murmur3 hash code of {@code len} bytes of {@code base} began with {@code offset}, see {@link #readLong(Object, long)} **/
+	static void murmur3_128(long seed, Object base, long offset, int len, long[] dest) {
+		long h1 = seed, h2 = seed;
+		long end = offset + (len & ~15);
+		for(long i=offset; i<end; i+=16) {
+			long k1 = readLong(base, i);
+			long k2 = readLong(base, i+8);
+			h1 = Murmur3_128Hasher.mixH1(h1, h2, k1);
+			h2 = Murmur3_128Hasher.mixH2(h1, h2, k2);
+		}
+		int remain = len & 15;
+		if(remain > 0) {
+			long k1 = 0, k2 = 0;
+			if(remain >= 8) {
+				k1 = readLong(base, end);
+				for(int j=8; j<remain; j++) { k2 |= (0xffL & readByte(base, end+j)) << ((j-8) << 3); }
+			}else {
+				for(int j=0; j<remain; j++) { k1 |= (0xffL & readByte(base, end+j)) << (j << 3); }
 			}
-			return new HashCode(buf.array());
+			h1 ^= Murmur3_128Hasher.mixK1(k1);
+			h2 ^= Murmur3_128Hasher.mixK2(k2);
 		}
+		Murmur3_128Hasher.makeHash(h1, h2, len, dest);
+	}
+	
+	/*
+	 * reads of the bytes of a base and an offset: a byte array from byteOffset(0), or the memory from an
+	 * address with a null base. they go through PlatformDependent, a word at a time, if it can read at any
+	 * byte offset, otherwise the base must be a byte array, read byte by byte from its index.
+	 */
+	
+	/** whether the bytes are read through {@link PlatformDependent}, and a memory address can be hashed **/
+	static final boolean RAW_BYTES = PlatformDependent.hasUnalignedAccess();
+	
+	/** the offset of {@code bytes[index]} for {@link #readLong(Object, long)} **/
+	static long byteOffset(int index) {
+		return RAW_BYTES ? PlatformDependent.BYTE_ARRAY_OFFSET + index : index;
+	}
+	
+	/** eight bytes of {@code base} began with {@code offset} as a little-endian {@code long} **/
+	static long readLong(Object base, long offset) {
+		return RAW_BYTES ? PlatformDependent.getLongLE(base, offset) : getLong((byte[]) base, (int) offset);
+	}
+	
+	/** four bytes of {@code base} began with {@code offset} as a little-endian {@code int} **/
+	static int readInt(Object base, long offset) {
+		return RAW_BYTES ? PlatformDependent.getIntLE(base, offset) : getInt((byte[]) base, (int) offset);
+	}
+	
+	static byte readByte(Object base, long offset) {
+		return RAW_BYTES ? PlatformDependent.getByte(base, offset) : ((byte[]) base)[(int) offset];
+	}
+	
+	static void checkBounds(byte[] bytes, int off, int len) {
+		if(off < 0 || len < 0 || off > bytes.length - len) {
+			throw new IndexOutOfBoundsException(String.format("off (%d), len (%d) out of bytes length (%d)", off, len, bytes.length));
+		}
+	}
+	
+	/** put the low {@code n} bytes of {@code value} in little-endian order from {@code index}, at most up to the end of {@code bytes} **/
+	static void putLong(byte[] bytes, int index, long value, int n) {
+		int end = Math.min(index + n, bytes.length);
+		for(int i=index; i<end; i++) {
+			bytes[i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+	
+	/** four bytes began with {@code index} as a little-endian {@code int} **/
+	static int getInt(byte[] bytes, int index) {
+		return (0xff & bytes[index])
+			 | ((0xff & bytes[index+1]) << 8)
+			 | ((0xff & bytes[index+2]) << 16)
+			 | ((0xff & bytes[index+3]) << 24);
+	}
+	
+	/** eight bytes began with {@code index} as a little-endian {@code long} **/
+	static long getLong(byte[] bytes, int index) {
+		return (0xffL & bytes[index])
+			 | ((0xffL & bytes[index+1]) << 8)
+			 | ((0xffL & bytes[index+2]) << 16)
+			 | ((0xffL & bytes[index+3]) << 24)
+			 | ((0xffL & bytes[index+4]) << 32)
+			 | ((0xffL & bytes[index+5]) << 40)
+			 | ((0xffL & bytes[index+6]) << 48)
+			 | ((0xffL & bytes[index+7]) << 56);
+	}
+	
+	/** four chars began with {@code index} as a little-endian {@code long} **/
+	static long getLong(CharSequence chars, int index) {
+		return ((long) chars.charAt(index))
+			 | ((long) chars.charAt(index+1) << 16)
+			 | ((long) chars.charAt(index+2) << 32)
+			 | ((long) chars.charAt(index+3) << 48);
+	}
+	
+	/**
+	 * the bytes of {@code object} encoded the same as {@link #hash(Object, int)}, so that the other
+	 * hash algorithms hash an arbitrary object the same way as murmur3.
+	 */
+	static byte[] bytesOf(Object object) {
+		return new ByteCollector().hashObject(object);
 	}
 	
 	/** a modified variant from guava **/
@@ -94,9 +491,11 @@ public final class Hashing {
 				return;
 			}
 			Class<?> clazz = obj.getClass();
-			if(clazz.isArray()) {
+			if(obj instanceof Object[]) {
 				Object[] array = (Object[]) obj;
 				for(Object e : array) { flush(e); }
+			}else if(clazz.isArray()) {
+				flushPrimitives(obj);
 			}else if(clazz == boolean.class || clazz == Boolean.class) {
 				bb.put((byte) ((Boolean)obj ? 1 : 0));
 			}else if(clazz == byte.class || clazz == Byte.class) {
@@ -131,9 +530,62 @@ public final class Hashing {
 			}else { bb.putInt(obj.hashCode()); }
 		}
 		
+		/** an array of primitives, each element the same as its boxed one **/
+		private void flushPrimitives(Object array) {
+			if(array instanceof byte[]) {
+				byte[] bytes = (byte[]) array;
+				for(int i=0; i<bytes.length; i++) {
+					bb.put(bytes[i]);
+					processIfFull(1);
+				}
+			}else if(array instanceof char[]) {
+				char[] chars = (char[]) array;
+				for(int i=0; i<chars.length; i++) {
+					bb.putChar(chars[i]);
+					processIfFull(2);
+				}
+			}else if(array instanceof int[]) {
+				int[] ints = (int[]) array;
+				for(int i=0; i<ints.length; i++) {
+					bb.putInt(ints[i]);
+					processIfFull(4);
+				}
+			}else if(array instanceof long[]) {
+				long[] longs = (long[]) array;
+				for(int i=0; i<longs.length; i++) {
+					bb.putLong(longs[i]);
+					processIfFull(8);
+				}
+			}else if(array instanceof short[]) {
+				short[] shorts = (short[]) array;
+				for(int i=0; i<shorts.length; i++) {
+					bb.putShort(shorts[i]);
+					processIfFull(2);
+				}
+			}else if(array instanceof boolean[]) {
+				boolean[] booleans = (boolean[]) array;
+				for(int i=0; i<booleans.length; i++) {
+					bb.put((byte) (booleans[i] ? 1 : 0));
+					processIfFull(1);
+				}
+			}else if(array instanceof float[]) {
+				float[] floats = (float[]) array;
+				for(int i=0; i<floats.length; i++) {
+					bb.putFloat(floats[i]);
+					processIfFull(4);
+				}
+			}else {
+				double[] doubles = (double[]) array;
+				for(int i=0; i<doubles.length; i++) {
+					bb.putDouble(doubles[i]);
+					processIfFull(8);
+				}
+			}
+		}
+		
 		final byte[] hash() {
 			bb.flip();
-	    	while(bb.remaining() > chunckSize) { process(bb); }
+	    	while(bb.remaining() >= chunckSize) { process(bb); }
 	    	if(bb.remaining() > 0) { processRemaining(bb); }
 	    	return makeHash();
 		}
@@ -141,7 +593,8 @@ public final class Hashing {
 		final void processIfFull(int requiredCapacity) {
 			if(bb.remaining() <= requiredCapacity) {
 				bb.flip();
-		    	while(bb.remaining() > chunckSize) { process(bb); }
+				// down to less than a chunk, so at least 8 bytes are free for the next primitive
+		    	while(bb.remaining() >= chunckSize) { process(bb); }
 		    	bb.compact();
 			}
 		}
@@ -155,6 +608,43 @@ public final class Hashing {
 		static int toInt(byte value) { return value & 0xFF; }
 	}
 	
+	/** collects the encoded bytes instead of hashing them **/
+	private static final class ByteCollector extends StreamHasher {
+		private static final int CHUNK_SIZE = 8;
+		private ByteBuffer out = ByteBuffer.allocate(64);
+		
+		ByteCollector() {
+			super(CHUNK_SIZE, CHUNK_SIZE);
+		}
+		
+		@Override
+		void process(ByteBuffer bb) {
+			append(bb, CHUNK_SIZE);
+		}
+		
+		@Override
+		void processRemaining(ByteBuffer bb) {
+			append(bb, bb.remaining());
+		}
+		
+		private void append(ByteBuffer bb, int length) {
+			if(out.remaining() < length) {
+				ByteBuffer bigger = ByteBuffer.allocate(out.capacity() * 2);
+				out.flip();
+				out = bigger.put(out);
+			}
+			for(int i=0; i<length; i++) { out.put(bb.get()); }
+		}
+		
+		@Override
+		byte[] makeHash() {
+			byte[] bytes = new byte[out.position()];
+			out.flip();
+			out.get(bytes);
+			return bytes;
+		}
+	}
+	
 	private static final class Murmur3_32Hasher extends StreamHasher {
 		private static final int CHUNK_SIZE = 4;
 		private static final int C1 = 0xcc9e2d51;
@@ -238,40 +728,48 @@ public final class Hashing {
 	    }
 
 	    void bmix64(long k1, long k2) {
+	        h1 = mixH1(h1, h2, k1);
+	        h2 = mixH2(h1, h2, k2);
+	    }
+	    
+	    static long mixH1(long h1, long h2, long k1) {
 	        h1 ^= mixK1(k1);
 
 	        h1 = Long.rotateLeft(h1, 27);
 	        h1 += h2;
-	        h1 = h1 * 5 + 0x52dce729;
-
+	        return h1 * 5 + 0x52dce729;
+	    }
+	    
+	    static long mixH2(long h1, long h2, long k2) {
 	        h2 ^= mixK2(k2);
 
 	        h2 = Long.rotateLeft(h2, 31);
 	        h2 += h1;
-	        h2 = h2 * 5 + 0x38495ab5;
+	        return h2 * 5 + 0x38495ab5;
 	    }
 
 	    void processRemaining(ByteBuffer bb) {
 	        long k1 = 0;
 	        long k2 = 0;
+	        int p = bb.position();	// the processed chunks are still in front of position
 	        length += bb.remaining();
 	        switch (bb.remaining()) {
-	            case 15: k2 ^= (long) toInt(bb.get(14)) << 48; // fall through
-	            case 14: k2 ^= (long) toInt(bb.get(13)) << 40; // fall through
-	            case 13: k2 ^= (long) toInt(bb.get(12)) << 32; // fall through
-	            case 12: k2 ^= (long) toInt(bb.get(11)) << 24; // fall through
-	            case 11: k2 ^= (long) toInt(bb.get(10)) << 16; // fall through
-	            case 10: k2 ^= (long) toInt(bb.get(9)) << 8; // fall through
-	            case 9: k2 ^= (long) toInt(bb.get(8)); // fall through
-	            case 8: k1 ^= bb.getLong();
+	            case 15: k2 ^= (long) toInt(bb.get(p+14)) << 48; // fall through
+	            case 14: k2 ^= (long) toInt(bb.get(p+13)) << 40; // fall through
+	            case 13: k2 ^= (long) toInt(bb.get(p+12)) << 32; // fall through
+	            case 12: k2 ^= (long) toInt(bb.get(p+11)) << 24; // fall through
+	            case 11: k2 ^= (long) toInt(bb.get(p+10)) << 16; // fall through
+	            case 10: k2 ^= (long) toInt(bb.get(p+9)) << 8; // fall through
+	            case 9: k2 ^= (long) toInt(bb.get(p+8)); // fall through
+	            case 8: k1 ^= bb.getLong(p);
 	            break;
-	            case 7: k1 ^= (long) toInt(bb.get(6)) << 48; // fall through
-	            case 6: k1 ^= (long) toInt(bb.get(5)) << 40; // fall through
-	            case 5: k1 ^= (long) toInt(bb.get(4)) << 32; // fall through
-	            case 4: k1 ^= (long) toInt(bb.get(3)) << 24; // fall through
-	            case 3: k1 ^= (long) toInt(bb.get(2)) << 16; // fall through
-	            case 2: k1 ^= (long) toInt(bb.get(1)) << 8; // fall through
-	            case 1: k1 ^= (long) toInt(bb.get(0));
+	            case 7: k1 ^= (long) toInt(bb.get(p+6)) << 48; // fall through
+	            case 6: k1 ^= (long) toInt(bb.get(p+5)) << 40; // fall through
+	            case 5: k1 ^= (long) toInt(bb.get(p+4)) << 32; // fall through
+	            case 4: k1 ^= (long) toInt(bb.get(p+3)) << 24; // fall through
+	            case 3: k1 ^= (long) toInt(bb.get(p+2)) << 16; // fall through
+	            case 2: k1 ^= (long) toInt(bb.get(p+1)) << 8; // fall through
+	            case 1: k1 ^= (long) toInt(bb.get(p));
 	            break;
 	            default:
 	            throw new AssertionError("Should never get here.");
@@ -281,6 +779,16 @@ public final class Hashing {
 	    }
 
 	    byte[] makeHash() {
+	        long[] dest = new long[2];
+	        makeHash(h1, h2, length, dest);
+	        return ByteBuffer.wrap(new byte[CHUNK_SIZE])
+	            .order(ByteOrder.LITTLE_ENDIAN)
+	            .putLong(dest[0])
+	            .putLong(dest[1])
+	            .array();
+	    }
+	    
+	    static void makeHash(long h1, long h2, int length, long[] dest) {
 	        h1 ^= length;
 	        h2 ^= length;
 
@@ -292,12 +800,9 @@ public final class Hashing {
 
 	        h1 += h2;
 	        h2 += h1;
-
-	        return ByteBuffer.wrap(new byte[CHUNK_SIZE])
-	            .order(ByteOrder.LITTLE_ENDIAN)
-	            .putLong(h1)
-	            .putLong(h2)
-	            .array();
+	        
+	        dest[0] = h1;
+	        dest[1] = h2;
 	    }
 
 	    static long fmix64(long k) {
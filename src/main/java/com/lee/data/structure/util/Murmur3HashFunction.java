@@ -0,0 +1,67 @@
+package com.lee.data.structure.util;
+
+/** the murmur3 {@link HashFunction}, the same hash codes as the static methods of {@link Hashing} **/
+final class Murmur3HashFunction extends HashFunction {
+
+	Murmur3HashFunction(long seed) {
+		super(seed);
+	}
+
+	@Override
+	public HashAlgorithm algorithm() { return HashAlgorithm.MURMUR3; }
+
+	@Override
+	public <T> HashCode hash(T object, int numOfHashBits) {
+		return Hashing.hash(seed(), object, numOfHashBits);
+	}
+
+	@Override
+	public <T> void hash(T object, HashCode dest) {
+		Hashing.hash(seed(), object, dest.asBytes().length, dest);
+	}
+
+	@Override
+	public <T> void hash128(T object, long[] dest) {
+		Hashing.hash128(seed(), object, dest);
+	}
+
+	@Override
+	public void hash128(long value, long[] dest) {
+		Hashing.murmur3_128(seed(), value, dest);
+	}
+
+	@Override
+	public void hash128(CharSequence chars, long[] dest) {
+		Hashing.murmur3_128(seed(), chars, dest);
+	}
+
+	@Override
+	public void hash128(byte[] bytes, int off, int len, long[] dest) {
+		Hashing.murmur3_128(seed(), bytes, off, len, dest);
+	}
+
+	@Override
+	void hashMemory128(Object base, long offset, int len, long[] dest) {
+		Hashing.murmur3_128(seed(), base, offset, len, dest);
+	}
+
+	@Override
+	public int hash32(int value) {
+		return Hashing.murmur3_32(seed(), value);
+	}
+
+	@Override
+	public int hash32(long value) {
+		return Hashing.murmur3_32(seed(), value);
+	}
+
+	@Override
+	public int hash32(CharSequence chars) {
+		return Hashing.murmur3_32(seed(), chars);
+	}
+
+	@Override
+	public int hash32(byte[] bytes, int off, int len) {
+		return Hashing.murmur3_32(seed(), bytes, off, len);
+	}
+}
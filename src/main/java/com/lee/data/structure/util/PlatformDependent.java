@@ -1,6 +1,9 @@
 package com.lee.data.structure.util;
 
 import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import sun.misc.Unsafe;
 
@@ -11,6 +14,17 @@ public class PlatformDependent {
 	private static final long CHAR_ARRAY_OFFSET;
 	private static final long CHAR_ARRAY_SCALE;
 	
+	/** base offset of a byte array, for the raw reads of {@link #getLongLE(Object, long)} **/
+	static final long BYTE_ARRAY_OFFSET;
+	
+	/** offset of the field {@code Buffer.address}, -1 if it isn't accessible **/
+	private static final long BUFFER_ADDRESS_OFFSET;
+	
+	/** whether a word can be read at any byte offset, a misaligned read may crash on some architectures **/
+	private static final boolean UNALIGNED;
+	
+	private static final boolean BIG_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+	
 	static {
 		Unsafe unsafe = null;
 		long offset = 0;
@@ -40,12 +54,60 @@ public class PlatformDependent {
 		UNSAFE = unsafe;
 		CHAR_ARRAY_OFFSET = offset;
 		CHAR_ARRAY_SCALE = scale;
+		
+		long byteArrayOffset = 0, addressOffset = -1;
+		if(unsafe != null) {
+			byteArrayOffset = unsafe.arrayBaseOffset(byte[].class);
+			try {
+				addressOffset = unsafe.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+			}catch(Throwable t) {	// a direct buffer is copied instead
+				addressOffset = -1;
+			}
+		}
+		BYTE_ARRAY_OFFSET = byteArrayOffset;
+		BUFFER_ADDRESS_OFFSET = addressOffset;
+		String arch = System.getProperty("os.arch", "");
+		UNALIGNED = arch.matches("^(i[3-6]86|x86(_64)?|x64|amd64|aarch64|ppc64le)$");
 	}
 	
 	public static boolean hasUnsafe() {
 		return UNSAFE != null;
 	}
 	
+	/** whether {@link #getLongLE(Object, long)} and {@link #getIntLE(Object, long)} can read at any byte offset **/
+	static boolean hasUnalignedAccess() {
+		return UNSAFE != null && UNALIGNED;
+	}
+	
+	/**
+	 * return the memory address of the first byte of the direct buffer {@code buf}, or 0 if
+	 * {@code buf} isn't direct or its address isn't accessible.
+	 */
+	static long directBufferAddress(ByteBuffer buf) {
+		if(!buf.isDirect() || UNSAFE == null || BUFFER_ADDRESS_OFFSET < 0) { return 0; }
+		return UNSAFE.getLong(buf, BUFFER_ADDRESS_OFFSET);
+	}
+	
+	/*
+	 * raw little-endian reads of a byte array ({@code base} is the array, {@code offset} from
+	 * BYTE_ARRAY_OFFSET) or of the memory ({@code base} is null, {@code offset} is an address),
+	 * they don't check anything, a caller must check the bounds and {@link #hasUnalignedAccess()}.
+	 */
+	
+	static long getLongLE(Object base, long offset) {
+		long value = UNSAFE.getLong(base, offset);
+		return BIG_ENDIAN ? Long.reverseBytes(value) : value;
+	}
+	
+	static int getIntLE(Object base, long offset) {
+		int value = UNSAFE.getInt(base, offset);
+		return BIG_ENDIAN ? Integer.reverseBytes(value) : value;
+	}
+	
+	static byte getByte(Object base, long offset) {
+		return UNSAFE.getByte(base, offset);
+	}
+	
 	/** return the char size of os's memory page **/
 	public static int memoryPageSize() {
 		if(!hasUnsafe()) {
@@ -0,0 +1,139 @@
+package com.lee.data.structure.util;
+
+/**
+ * the 64 bits xxHash {@link HashFunction}, the same hash codes as XXH64 of the reference implementation
+ * on the same bytes, a {@code long} and an {@code int} are hashed as their little-endian bytes.
+ * see more detail of <a href="https://github.com/Cyan4973/xxHash/blob/dev/doc/xxhash_spec.md">xxHash specification</a>
+ */
+final class XxHash64HashFunction extends Hash64Function {
+
+	private static final long P1 = 0x9E3779B185EBCA87L;
+	private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long P3 = 0x165667B19E3779F9L;
+	private static final long P4 = 0x85EBCA77C2B2AE63L;
+	private static final long P5 = 0x27D4EB2F165667C5L;
+
+	/** bytes of a stripe, 4 lanes of 8 bytes **/
+	private static final int STRIPE_SIZE = 32;
+
+	XxHash64HashFunction(long seed) {
+		super(seed);
+	}
+
+	@Override
+	public HashAlgorithm algorithm() { return HashAlgorithm.XXHASH64; }
+
+	@Override
+	long hash64(long seed, int value) {
+		long h = seed + P5 + 4;
+		h ^= (value & 0xffffffffL) * P1;
+		h = Long.rotateLeft(h, 23) * P2 + P3;
+		return avalanche(h);
+	}
+
+	@Override
+	long hash64(long seed, long value) {
+		long h = seed + P5 + 8;
+		h ^= round(0, value);
+		h = Long.rotateLeft(h, 27) * P1 + P4;
+		return avalanche(h);
+	}
+
+	@Override
+	long hash64(long seed, CharSequence chars) {
+		int len = chars.length() << 1;
+		int p = 0;
+		long h;
+		if(len >= STRIPE_SIZE) {
+			long v1 = seed + P1 + P2, v2 = seed + P2, v3 = seed, v4 = seed - P1;
+			for(int limit=len-STRIPE_SIZE; p<=limit; p+=STRIPE_SIZE) {
+				v1 = round(v1, getLong(chars, p));
+				v2 = round(v2, getLong(chars, p+8));
+				v3 = round(v3, getLong(chars, p+16));
+				v4 = round(v4, getLong(chars, p+24));
+			}
+			h = merge(v1, v2, v3, v4);
+		}else {
+			h = seed + P5;
+		}
+		h += len;
+		for(; p+8<=len; p+=8) {
+			h ^= round(0, getLong(chars, p));
+			h = Long.rotateLeft(h, 27) * P1 + P4;
+		}
+		if(p+4 <= len) {
+			h ^= getUnsignedInt(chars, p) * P1;
+			h = Long.rotateLeft(h, 23) * P2 + P3;
+			p += 4;
+		}
+		if(p < len) {	// a single char, 2 bytes
+			char c = chars.charAt(p >>> 1);
+			h ^= (c & 0xff) * P5;
+			h = Long.rotateLeft(h, 11) * P1;
+			h ^= (c >>> 8) * P5;
+			h = Long.rotateLeft(h, 11) * P1;
+		}
+		return avalanche(h);
+	}
+
+	@Override
+	long hash64(long seed, Object base, long offset, int len) {
+		long p = offset, end = offset + len;
+		long h;
+		if(len >= STRIPE_SIZE) {
+			long v1 = seed + P1 + P2, v2 = seed + P2, v3 = seed, v4 = seed - P1;
+			for(long limit=end-STRIPE_SIZE; p<=limit; p+=STRIPE_SIZE) {
+				v1 = round(v1, Hashing.readLong(base, p));
+				v2 = round(v2, Hashing.readLong(base, p+8));
+				v3 = round(v3, Hashing.readLong(base, p+16));
+				v4 = round(v4, Hashing.readLong(base, p+24));
+			}
+			h = merge(v1, v2, v3, v4);
+		}else {
+			h = seed + P5;
+		}
+		h += len;
+		for(; p+8<=end; p+=8) {
+			h ^= round(0, Hashing.readLong(base, p));
+			h = Long.rotateLeft(h, 27) * P1 + P4;
+		}
+		if(p+4 <= end) {
+			h ^= readUnsignedInt(base, p) * P1;
+			h = Long.rotateLeft(h, 23) * P2 + P3;
+			p += 4;
+		}
+		for(; p<end; p++) {
+			h ^= (Hashing.readByte(base, p) & 0xff) * P5;
+			h = Long.rotateLeft(h, 11) * P1;
+		}
+		return avalanche(h);
+	}
+
+	private static long round(long acc, long input) {
+		acc += input * P2;
+		acc = Long.rotateLeft(acc, 31);
+		return acc * P1;
+	}
+
+	private static long merge(long v1, long v2, long v3, long v4) {
+		long h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+		h = mergeRound(h, v1);
+		h = mergeRound(h, v2);
+		h = mergeRound(h, v3);
+		return mergeRound(h, v4);
+	}
+
+	private static long mergeRound(long acc, long v) {
+		acc ^= round(0, v);
+		return acc * P1 + P4;
+	}
+
+	private static long avalanche(long h) {
+		h ^= h >>> 33;
+		h *= P2;
+		h ^= h >>> 29;
+		h *= P3;
+		h ^= h >>> 32;
+		return h;
+	}
+}
@@ -0,0 +1,44 @@
+package com.lee.data.structure.filter;
+
+import java.util.Arrays;
+
+public class BinaryFuseFilterTest {
+
+	public static void main(String[] args) {
+		buildTest(1000000, 0.01);
+		buildTest(1000000, 1.0 / (1 << 16));
+		buildTest(1000, 0.001);
+
+		// tiny and duplicated sets
+		BinaryFuseFilter<String> empty = BinaryFuseFilter.create(new String[0], 0.01);
+		println("empty contain {a}: "+empty.mightContain("a"));	// false
+		BinaryFuseFilter<String> duplicated = BinaryFuseFilter.create(Arrays.asList("a", "b", "a", "a"), 0.01);
+		println("duplicated numOfElements: "+duplicated.numOfElements());	// 2
+		println("duplicated contain {a}, {b}: "+duplicated.mightContain("a")+", "+duplicated.mightContain("b"));	// true, true
+		println();
+	}
+
+	private static void buildTest(int n, double fpp) {
+		String[] elements = new String[n];
+		for(int i=0; i<n; i++) { elements[i] = "element-"+i; }
+		long start = System.nanoTime();
+		BinaryFuseFilter<String> filter = BinaryFuseFilter.create(elements, fpp);
+		long elapsed = System.nanoTime() - start;
+
+		int falseNegatives = 0, falsePositives = 0;
+		for(int i=0; i<n; i++) {
+			if(!filter.mightContain("element-"+i)) { falseNegatives++; }
+			if(filter.mightContain("absent-"+i)) { falsePositives++; }
+		}
+		println("BinaryFuseFilter of "+n+" elements, fingerprintLength: "+filter.fingerprintLength()+", built in "+elapsed/1000000+"ms");
+		println("bits per element: "+((double)filter.bitSize() / n));	// about 1.125 * fingerprintLength for a large set
+		println("falseNegatives: "+falseNegatives);	// 0
+		println("fpp: "+((double)falsePositives / n)+" (expected "+fpp+")");
+		println();
+	}
+
+	private static void println() { System.out.println(); }
+
+	private static <T> void println(T obj) { System.out.println(obj); }
+
+}
@@ -1,10 +1,25 @@
 package com.lee.data.structure.filter;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.lee.data.structure.filter.BloomFilter;
+import com.lee.data.structure.util.HashFunction;
+import com.lee.data.structure.util.Hashing;
 
 public class BloomFilterTest {
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException, InterruptedException {
 		int expectedCapacity = 10;
 		double fpp = 0.001;	// 0.1%
 		BloomFilter<String> filter = BloomFilter.create(expectedCapacity, fpp);
@@ -30,6 +45,203 @@ public class BloomFilterTest {
 		element = "1234567890";
 		println("contain {"+element+"}: "+filter.mightContain(element));
 		println();
+		
+		fppTest(BloomFilter.<String>create(100000, fpp), 100000, "standard");
+		fppTest(BloomFilter.<String>createBlocked(100000, fpp), 100000, "blocked");
+		
+		batchTest(BloomFilter.<String>create(100000, fpp), BloomFilter.<String>create(100000, fpp, filter.hashFunction()),
+				BloomFilter.<String>create(100000, fpp, filter.hashFunction()), "standard");
+		batchTest(BloomFilter.<String>createBlocked(100000, fpp), BloomFilter.<String>createBlocked(100000, fpp, filter.hashFunction()),
+				BloomFilter.<String>createBlocked(100000, fpp, filter.hashFunction()), "blocked");
+		
+		concurrentLookupTest(BloomFilter.<String>create(100000, fpp), "standard");
+		concurrentLookupTest(BloomFilter.<String>createBlocked(100000, fpp), "blocked");
+		
+		saveTest(BloomFilter.<String>create(100000, fpp), "standard");
+		saveTest(BloomFilter.<String>createBlocked(100000, fpp), "blocked");
+		
+		streamTest(BloomFilter.<String>create(1000000, fpp), "standard");
+		streamTest(BloomFilter.<String>createBlocked(1000000, fpp), "blocked");
+		streamTest(BloomFilter.<String>create(1000000, fpp, Hashing.wyhash(20170101L)), "wyhash");
+		
+		combineTest(fpp);
+		corruptedHeaderTest(fpp);
+		
+		for(double illegalFpp : new double[] {0, 1.5}) {
+			try {
+				BloomFilter.createBlocked(100, illegalFpp);
+				println("fpp "+illegalFpp+" accepted");
+			}catch(IllegalArgumentException e) {
+				println("fpp "+illegalFpp+" rejected: "+e.getMessage());	// fpp (0.000000) must be > 0, fpp (1.500000) must be < 1
+			}
+		}
+	}
+	
+	/** two shards with overlapped elements, combined by union and intersect **/
+	private static void combineTest(double fpp) {
+		HashFunction hashFunction = Hashing.murmur3(20170101L);
+		BloomFilter<String> shard1 = BloomFilter.create(100000, fpp, hashFunction);
+		BloomFilter<String> shard2 = BloomFilter.create(100000, fpp, hashFunction);
+		BloomFilter<String> all = BloomFilter.create(100000, fpp, hashFunction);
+		for(int i=0; i<30000; i++) { shard1.put("element-"+i); all.put("element-"+i); }
+		for(int i=20000; i<50000; i++) { shard2.put("element-"+i); all.put("element-"+i); }
+		println("shard1 approximateElementCount: "+shard1.approximateElementCount());	// ~30000
+		println("compatible: "+shard1.isCompatible(shard2));	// true
+		println("compatible with other seed: "+shard1.isCompatible(BloomFilter.<String>create(100000, fpp)));	// false
+		
+		BloomFilter<String> intersection = BloomFilter.create(100000, fpp, hashFunction);
+		intersection.union(shard1);
+		intersection.intersect(shard2);
+		int inBoth = 0;
+		for(int i=0; i<50000; i++) { if(intersection.mightContain("element-"+i)) { inBoth++; } }
+		println("intersection mightContain: "+inBoth);	// ~10000
+		
+		shard1.union(shard2);
+		println("union same as all: "+(shard1.currentFpp() == all.currentFpp()));	// true
+		println("union approximateElementCount: "+shard1.approximateElementCount());	// ~50000
+		println();
+	}
+	
+	/** a filter mapped from the saved file must answer the same as the original one **/
+	private static void saveTest(BloomFilter<String> filter, String name) throws IOException {
+		for(int i=0; i<10000; i++) { filter.put("element-"+i); }
+		Path path = Files.createTempFile("bloom", ".filter");
+		try {
+			filter.save(path);
+			BloomFilter<String> opened = BloomFilter.open(path);
+			println(name+" same currentFpp: "+(filter.currentFpp() == opened.currentFpp()));	// true
+			boolean same = true;
+			for(int i=0; i<10000; i++) {
+				same &= (opened.mightContain("element-"+i) == filter.mightContain("element-"+i));
+				same &= (opened.mightContain("absent-"+i) == filter.mightContain("absent-"+i));
+			}
+			println(name+" same mightContain: "+same);	// true
+			try {
+				opened.put("element");
+				println(name+" put into read only filter: no exception");
+			}catch(UnsupportedOperationException e) {
+				println(name+" put into read only filter: "+e.getMessage());
+			}
+		}finally {
+			Files.delete(path);
+		}
+		println();
+	}
+	
+	/** filters written one after another into a stream must be read back the same, larger than the transfer buffer **/
+	private static void streamTest(BloomFilter<String> filter, String name) throws IOException {
+		for(int i=0; i<1000000; i++) { filter.put("element-"+i); }
+		Path path = Files.createTempFile("bloom", ".filter");
+		try {
+			filter.save(path);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			WritableByteChannel channel = Channels.newChannel(out);
+			filter.writeTo(channel);
+			BloomFilter.<String>open(path).writeTo(channel);	// written straight from the mapping
+			println(name+" written bytes: "+out.size()+", saved file bytes: "+Files.size(path));	// 2 times of the file
+			
+			ReadableByteChannel in = Channels.newChannel(new ByteArrayInputStream(out.toByteArray()));
+			BloomFilter<String> first = BloomFilter.readFrom(in);
+			BloomFilter<String> second = BloomFilter.readFrom(in);
+			boolean same = true;
+			for(int i=0; i<1000000; i++) {
+				same &= first.mightContain("element-"+i) && second.mightContain("element-"+i);
+				same &= (first.mightContain("absent-"+i) == filter.mightContain("absent-"+i));
+				same &= (second.mightContain("absent-"+i) == filter.mightContain("absent-"+i));
+			}
+			println(name+" read back same mightContain: "+same+", same currentFpp: "
+					+(first.currentFpp() == filter.currentFpp() && second.currentFpp() == filter.currentFpp()));	// true, true
+			println(name+" read back hash function: "+first.hashFunction()+", same: "+first.hashFunction().equals(filter.hashFunction()));	// true
+			println(name+" put into read back filter: "+first.put("element"));	// true, writable
+		}finally {
+			Files.delete(path);
+		}
+		println();
+	}
+	
+	/** a header with an illegal number of hashes, or a blocked filter of partial blocks, must be rejected by an IOException **/
+	private static void corruptedHeaderTest(double fpp) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BloomFilter.<String>createBlocked(1000, fpp).writeTo(Channels.newChannel(out));
+		byte[] bytes = out.toByteArray();
+		int numOfWords = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt(24);
+		int[][] corruptions = {{12, 0}, {12, 257}, {24, numOfWords - 1}};	// {offset, value}
+		for(int[] corruption : corruptions) {
+			byte[] corrupted = bytes.clone();
+			ByteBuffer.wrap(corrupted).order(ByteOrder.LITTLE_ENDIAN).putInt(corruption[0], corruption[1]);
+			try {
+				BloomFilter.readFrom(Channels.newChannel(new ByteArrayInputStream(corrupted)));
+				println("corrupted header accepted");
+			}catch(IOException e) {
+				println("corrupted header rejected: "+e.getMessage());
+			}
+		}
+		println();
+	}
+	
+	/** the batch operations must agree with the single element ones **/
+	private static void batchTest(BloomFilter<String> single, BloomFilter<String> batch, BloomFilter<String> hashed, String name) {
+		String[] elements = new String[10000];
+		String[] candidates = new String[elements.length << 1];
+		for(int i=0; i<elements.length; i++) {
+			elements[i] = "element-"+i;
+			candidates[i<<1] = elements[i];
+			candidates[(i<<1)+1] = "absent-"+i;
+		}
+		for(String element : elements) { single.put(element); }
+		batch.putAll(Arrays.asList(elements));
+		println(name+" same currentFpp: "+(single.currentFpp() == batch.currentFpp()));	// true
+		long[] hashCodes = new long[elements.length << 1];
+		hashed.hashFunction().hashAll(elements, hashCodes);
+		hashed.putAllHashes(hashCodes);
+		println(name+" same currentFpp of hash codes: "+(single.currentFpp() == hashed.currentFpp()));	// true
+		
+		boolean[] results = batch.mightContainAll(candidates);
+		boolean same = true;
+		for(int i=0; i<candidates.length; i++) { same &= (results[i] == single.mightContain(candidates[i])); }
+		println(name+" same mightContain: "+same);	// true
+		println();
+	}
+	
+	/** lookups of a built filter run concurrently, single and batch ones, none of them may miss a put element **/
+	private static void concurrentLookupTest(final BloomFilter<String> filter, String name) throws InterruptedException {
+		final String[] elements = new String[100000];
+		for(int i=0; i<elements.length; i++) { elements[i] = "element-"+i; }
+		filter.putAll(elements);
+		final AtomicInteger falseNegatives = new AtomicInteger();
+		Thread[] threads = new Thread[8];
+		for(int t=0; t<threads.length; t++) {
+			final boolean batch = (t & 1) == 0;
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for(int round=0; round<5; round++) {
+						if(batch) {
+							for(boolean result : filter.mightContainAll(elements)) { if(!result) { falseNegatives.incrementAndGet(); } }
+						}else {
+							for(String element : elements) { if(!filter.mightContain(element)) { falseNegatives.incrementAndGet(); } }
+						}
+					}
+				}
+			});
+		}
+		for(Thread thread : threads) { thread.start(); }
+		for(Thread thread : threads) { thread.join(); }
+		println(name+" concurrent lookups falseNegatives: "+falseNegatives.get());	// 0
+		println();
+	}
+	
+	/** put {@code n} elements, then count the false positives among {@code n} absent elements **/
+	private static void fppTest(BloomFilter<String> filter, int n, String name) {
+		int falseNegatives = 0, falsePositives = 0;
+		for(int i=0; i<n; i++) { filter.put("element-"+i); }
+		for(int i=0; i<n; i++) {
+			if(!filter.mightContain("element-"+i)) { falseNegatives++; }
+			if(filter.mightContain("absent-"+i)) { falsePositives++; }
+		}
+		println(name+" falseNegatives: "+falseNegatives);	// 0
+		println(name+" fpp: "+((double)falsePositives / n)+", currentFpp: "+filter.currentFpp());	// both ~0.001, a blocked filter too
+		println();
 	}
 	
 	private static void println() { System.out.println(); }
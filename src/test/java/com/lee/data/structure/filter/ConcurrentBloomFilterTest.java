@@ -0,0 +1,54 @@
+package com.lee.data.structure.filter;
+
+import java.util.concurrent.CountDownLatch;
+
+import com.lee.data.structure.util.HashFunction;
+import com.lee.data.structure.util.Hashing;
+
+public class ConcurrentBloomFilterTest {
+
+	public static void main(String[] args) throws InterruptedException {
+		final int numOfThreads = 8;
+		final int numOfElementsPerThread = 100000;
+		int expectedCapacity = numOfThreads * numOfElementsPerThread;
+		double fpp = 0.001;	// 0.1%
+		HashFunction hashFunction = Hashing.murmur3(20170101L);
+		final ConcurrentBloomFilter<String> filter = ConcurrentBloomFilter.create(expectedCapacity, fpp, hashFunction);
+		
+		// put concurrently
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[numOfThreads];
+		for(int t=0; t<numOfThreads; t++) {
+			final int from = t * numOfElementsPerThread;
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try { start.await(); }catch(InterruptedException e) { return; }
+					for(int i=from; i<from+numOfElementsPerThread; i++) { filter.put("element-"+i); }
+				}
+			});
+			threads[t].start();
+		}
+		start.countDown();
+		for(Thread thread : threads) { thread.join(); }
+		
+		// the same bits as a single threaded filter with the same seed
+		BloomFilter<String> expected = BloomFilter.create(expectedCapacity, fpp, hashFunction);
+		for(int i=0; i<expectedCapacity; i++) { expected.put("element-"+i); }
+		println("same currentFpp: " + (filter.currentFpp() == expected.currentFpp()));	// true
+		
+		int falseNegatives = 0, falsePositives = 0;
+		for(int i=0; i<expectedCapacity; i++) {
+			if(!filter.mightContain("element-"+i)) { falseNegatives++; }
+			if(filter.mightContain("absent-"+i)) { falsePositives++; }
+		}
+		println("falseNegatives: "+falseNegatives);	// 0
+		println("fpp: "+((double)falsePositives / expectedCapacity)+", currentFpp: "+filter.currentFpp());
+		println();
+	}
+	
+	private static void println() { System.out.println(); }
+	
+	private static <T> void println(T obj) { System.out.println(obj); }
+
+}
@@ -0,0 +1,73 @@
+package com.lee.data.structure.filter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentCuckooFilterTest {
+
+	public static void main(String[] args) throws InterruptedException {
+		final int numOfThreads = 8;
+		final int numOfElementsPerThread = 100000;
+		int expectedCapacity = numOfThreads * numOfElementsPerThread;
+		double fpp = 0.001;	// 0.1%
+		// 95% load, a random walk reaches about 95% load with 4 entries per bucket
+		final ConcurrentCuckooFilter<String> filter = ConcurrentCuckooFilter.create((int)(expectedCapacity / 0.95), fpp);
+
+		String element = "abcdefg";
+		println("put {"+element+"}: "+filter.put(element));	// true
+		println("contain {"+element+"}: "+filter.mightContain(element));	// true
+		println("remove {"+element+"}: "+filter.remove(element));	// true
+		println("contain {"+element+"}: "+filter.mightContain(element));	// false
+		println();
+
+		// put concurrently, while other threads keep looking up the elements put already
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicInteger failedPuts = new AtomicInteger();
+		final AtomicInteger missedLookups = new AtomicInteger();
+		final AtomicInteger concurrentFalsePositives = new AtomicInteger();
+		Thread[] threads = new Thread[numOfThreads * 2];
+		for(int t=0; t<numOfThreads; t++) {
+			final int from = t * numOfElementsPerThread;
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try { start.await(); }catch(InterruptedException e) { return; }
+					for(int i=from; i<from+numOfElementsPerThread; i++) {
+						if(!filter.put("element-"+i)) { failedPuts.incrementAndGet(); }
+						if(!filter.mightContain("element-"+i)) { missedLookups.incrementAndGet(); }
+					}
+				}
+			});
+			threads[numOfThreads+t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try { start.await(); }catch(InterruptedException e) { return; }
+					for(int i=from; i<from+numOfElementsPerThread; i++) {
+						if(filter.mightContain("absent-"+i)) { concurrentFalsePositives.incrementAndGet(); }
+					}
+				}
+			});
+		}
+		for(Thread thread : threads) { thread.start(); }
+		start.countDown();
+		for(Thread thread : threads) { thread.join(); }
+		println("failedPuts: "+failedPuts.get());	// 0
+		println("missed right after put: "+missedLookups.get());	// 0
+		println("false positives while putting: "+concurrentFalsePositives.get());
+		println("numOfExistedElements: "+filter.numOfExistedElements()+" (put "+expectedCapacity+")");
+
+		int falseNegatives = 0, falsePositives = 0;
+		for(int i=0; i<expectedCapacity; i++) {
+			if(!filter.mightContain("element-"+i)) { falseNegatives++; }
+			if(filter.mightContain("absent-"+i)) { falsePositives++; }
+		}
+		println("falseNegatives: "+falseNegatives);	// 0
+		println("fpp: "+((double)falsePositives / expectedCapacity)+" (expected "+fpp+")");
+		println();
+	}
+
+	private static void println() { System.out.println(); }
+
+	private static <T> void println(T obj) { System.out.println(obj); }
+
+}
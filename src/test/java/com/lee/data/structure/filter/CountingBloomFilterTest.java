@@ -0,0 +1,39 @@
+package com.lee.data.structure.filter;
+
+public class CountingBloomFilterTest {
+
+	public static void main(String[] args) {
+		int expectedCapacity = 100000;
+		double fpp = 0.001;	// 0.1%
+		CountingBloomFilter<String> filter = CountingBloomFilter.create(expectedCapacity, fpp);
+
+		String element = "abcdefg";
+		println("put {"+element+"}: "+filter.put(element));	// true
+		println("contain {"+element+"}: "+filter.mightContain(element));	// true
+		println("remove {"+element+"}: "+filter.remove(element));	// true
+		println("contain {"+element+"}: "+filter.mightContain(element));	// false
+		println("remove {"+element+"}: "+filter.remove(element));	// false
+		println();
+
+		// put all, then remove the odd ones, like expiring sessions
+		for(int i=0; i<expectedCapacity; i++) { filter.put("session-"+i); }
+		int removed = 0;
+		for(int i=1; i<expectedCapacity; i+=2) { if(filter.remove("session-"+i)) { removed++; } }
+		int falseNegatives = 0, stillContained = 0;
+		for(int i=0; i<expectedCapacity; i++) {
+			boolean contained = filter.mightContain("session-"+i);
+			if((i & 1) == 0 && !contained) { falseNegatives++; }
+			if((i & 1) == 1 && contained) { stillContained++; }
+		}
+		println("removed: "+removed);	// 50000
+		println("falseNegatives: "+falseNegatives);	// 0
+		println("removed but still contained: "+stillContained+" (expected < "+(int)(fpp * expectedCapacity / 2)+")");
+		println("currentFpp: "+filter.currentFpp());
+		println();
+	}
+
+	private static void println() { System.out.println(); }
+
+	private static <T> void println(T obj) { System.out.println(obj); }
+
+}
@@ -1,12 +1,73 @@
 package com.lee.data.structure.filter;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.lee.data.structure.filter.CuckooFilter;
+import com.lee.data.structure.util.Hashing;
 
 public class CuckooFilterTest {
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException, InterruptedException {
 		// smallFingerprintTest();
 		largeFingerprintTest();
+		loadTest(100000, 0.001);
+		loadTest(1000, 6.776263578034403E-21);
+		maxLoadTest(100000, 0.001);
+		semiSortedTest(100000, 0.01);
+		semiSortedTest(100000, 1e-12);
+		streamTest(CuckooFilter.<String>create(100000, 0.001), "standard");
+		streamTest(CuckooFilter.<String>createSemiSorted(100000, 0.001), "semi-sorted");
+		streamTest(CuckooFilter.<String>createBreadthFirst(100000, 1e-20), "large fingerprint");
+		streamTest(CuckooFilter.<String>create(100000, 0.001, Hashing.xxHash64(20170101L)), "xxhash64");
+		concurrentLookupTest(CuckooFilter.<String>create(100000, 0.001), "standard");
+		concurrentLookupTest(CuckooFilter.<String>createSemiSorted(100000, 0.001), "semi-sorted");
+		concurrentLookupTest(CuckooFilter.<String>create(100000, 1e-20), "large fingerprint");
+	}
+	
+	/** lookups of a built filter run concurrently, none of them may miss a put element, half load so nothing is kicked out **/
+	private static void concurrentLookupTest(final CuckooFilter<String> filter, String name) throws InterruptedException {
+		final int n = 50000;
+		for(int i=0; i<n; i++) { filter.put("element-"+i); }
+		final AtomicInteger falseNegatives = new AtomicInteger();
+		Thread[] threads = new Thread[8];
+		for(int t=0; t<threads.length; t++) {
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for(int round=0; round<5; round++) {
+						for(int i=0; i<n; i++) { if(!filter.mightContain("element-"+i)) { falseNegatives.incrementAndGet(); } }
+					}
+				}
+			});
+		}
+		for(Thread thread : threads) { thread.start(); }
+		for(Thread thread : threads) { thread.join(); }
+		println(name+" concurrent lookups falseNegatives: "+falseNegatives.get()+", kickout: "+filter.numOfKickoutElements());	// 0, 0
+		println();
+	}
+	
+	/** a filter read back from a stream must answer the same and remove the same as the original one **/
+	private static void streamTest(CuckooFilter<String> filter, String name) throws IOException {
+		int n = 90000;
+		for(int i=0; i<n; i++) { filter.put("element-"+i); }
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		filter.writeTo(Channels.newChannel(out));
+		CuckooFilter<String> read = CuckooFilter.readFrom(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+		boolean same = read.numOfExistedElements() == filter.numOfExistedElements()
+				&& read.hashFunction().equals(filter.hashFunction())
+				&& read.fingerprintLength() == filter.fingerprintLength();
+		for(int i=0; i<n; i++) {
+			same &= (read.mightContain("element-"+i) == filter.mightContain("element-"+i));
+			same &= (read.mightContain("absent-"+i) == filter.mightContain("absent-"+i));
+		}
+		for(int i=0; i<n; i+=2) { same &= (read.remove("element-"+i) == filter.remove("element-"+i)); }
+		for(int i=0; i<n; i++) { same &= (read.mightContain("element-"+i) == filter.mightContain("element-"+i)); }
+		println(name+" written bytes: "+out.size()+", read back same: "+same);	// true
+		println();
 	}
 
 	private static void smallFingerprintTest() {
@@ -107,6 +168,76 @@ public class CuckooFilterTest {
 		printStatisticsOf(filter);
 	}
 	
+	/** fill the filter up to its expected capacity, no put element may be missed unless kicked out **/
+	private static void loadTest(int expectedCapacity, double fpp) {
+		CuckooFilter<String> filter = CuckooFilter.create(expectedCapacity, fpp);
+		printPropertiesOf(filter);
+		for(int i=0; i<expectedCapacity; i++) { filter.put("element-"+i); }
+		int falseNegatives = 0;
+		for(int i=0; i<expectedCapacity; i++) {
+			if(!filter.mightContain("element-"+i)) { falseNegatives++; }
+		}
+		int falsePositives = 0;
+		for(int i=0; i<expectedCapacity; i++) {
+			if(filter.mightContain("absent-"+i)) { falsePositives++; }
+		}
+		int removed = 0;
+		for(int i=0; i<expectedCapacity; i+=2) {
+			if(filter.remove("element-"+i)) { removed++; }
+		}
+		println("falseNegatives: "+falseNegatives);	// <= numOfKickoutElements
+		println("falsePositives: "+falsePositives+" (expected ~"+(int)(fpp*expectedCapacity)+")");
+		println("removed: "+removed);
+		printStatisticsOf(filter);
+	}
+	
+	/** put until the first failure, then put the rest, a breadth-first search rejects the new element rather than drop an existed one **/
+	private static void maxLoadTest(int expectedCapacity, double fpp) {
+		CuckooFilter<String> randomWalk = CuckooFilter.create(expectedCapacity, fpp);
+		CuckooFilter<String> breadthFirst = CuckooFilter.createBreadthFirst(expectedCapacity, fpp);
+		println("random walk load factor: "+maxLoadOf(randomWalk, expectedCapacity));
+		println("breadth-first load factor: "+maxLoadOf(breadthFirst, expectedCapacity));
+		println();
+	}
+	
+	/** the same fingerprints as plain buckets, filled up to 90% then half removed **/
+	private static void semiSortedTest(int expectedCapacity, double fpp) {
+		CuckooFilter<String> filter = CuckooFilter.createSemiSorted(expectedCapacity, fpp);
+		printPropertiesOf(filter);
+		int n = (int) (expectedCapacity * 0.9);
+		for(int i=0; i<n; i++) { filter.put("element-"+i); }
+		int falseNegatives = 0, falsePositives = 0;
+		for(int i=0; i<n; i++) {
+			if(!filter.mightContain("element-"+i)) { falseNegatives++; }
+			if(filter.mightContain("absent-"+i)) { falsePositives++; }
+		}
+		int removed = 0;
+		for(int i=1; i<n; i+=2) {
+			if(filter.remove("element-"+i)) { removed++; }
+		}
+		int falseNegativesAfterRemoval = 0;
+		for(int i=0; i<n; i+=2) {
+			if(!filter.mightContain("element-"+i)) { falseNegativesAfterRemoval++; }
+		}
+		println("semi-sorted falseNegatives: "+falseNegatives+", after removal: "+falseNegativesAfterRemoval);	// 0, 0
+		println("semi-sorted falsePositives: "+falsePositives+" (expected ~"+(int)(fpp*n)+")");
+		println("semi-sorted removed: "+removed+" (put "+(n/2)+")");
+		printStatisticsOf(filter);
+	}
+	
+	private static double maxLoadOf(CuckooFilter<String> filter, int expectedCapacity) {
+		int i = 0;
+		do { filter.put("element-"+(i++)); }while(filter.numOfKickoutElements() == 0);
+		double loadFactor = ((double)filter.numOfExistedElements()) / ((long)filter.numOfBuckets() * filter.numOfEntries());
+		for(; i<expectedCapacity; i++) { filter.put("element-"+i); }
+		int falseNegatives = 0;
+		for(i=0; i<expectedCapacity; i++) {
+			if(!filter.mightContain("element-"+i)) { falseNegatives++; }
+		}
+		println("numOfKickoutElements: "+filter.numOfKickoutElements()+", falseNegatives: "+falseNegatives);	// falseNegatives <= numOfKickoutElements
+		return loadFactor;
+	}
+	
 	private static void printPropertiesOf(CuckooFilter filter) {
 		println("CuckooFilter properties: ");
 		println("numOfBuckets: "+filter.numOfBuckets());
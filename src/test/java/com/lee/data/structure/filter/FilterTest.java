@@ -0,0 +1,60 @@
+package com.lee.data.structure.filter;
+
+import java.util.Arrays;
+
+public class FilterTest {
+
+	public static void main(String[] args) {
+		int expectedCapacity = 100000;
+		double fpp = 0.001;	// 0.1%
+		String[] elements = new String[expectedCapacity];
+		String[] absents = new String[expectedCapacity];
+		for(int i=0; i<expectedCapacity; i++) {
+			elements[i] = "element-"+i;
+			absents[i] = "absent-"+i;
+		}
+
+		// the same workload on every type, created by configuration
+		for(FilterType type : FilterType.values()) {
+			InstrumentedFilter<String> filter = InstrumentedFilter.of(type.<String>create(expectedCapacity, fpp));
+			filter.putAll(elements);
+			boolean[] results = filter.mightContainAll(elements);
+			int falseNegatives = 0;
+			for(boolean result : results) { if(!result) { falseNegatives++; } }
+			int falsePositives = 0;
+			for(String absent : absents) { if(filter.mightContain(absent)) { falsePositives++; } }
+			println(type+" falseNegatives: "+falseNegatives+", fpp: "+((double)falsePositives / expectedCapacity));	// 0 but a cuckoo filter full at 98%, ~0.001
+			println(filter.stats());	// numOfPuts = 100000, numOfLookups = 200000, numOfHits = 100000 + falsePositives
+		}
+		println();
+
+		// an Iterable goes to the batched putAll of the underlying filter, counted as it is consumed
+		InstrumentedFilter<String> iterable = InstrumentedFilter.of(FilterType.BLOOM.<String>create(expectedCapacity, fpp));
+		iterable.putAll(Arrays.asList(elements));
+		println("putAll(Iterable) numOfPuts: "+iterable.stats().numOfPuts());	// 100000
+		println();
+
+		BinaryFuseFilter<String> fuse = BinaryFuseFilter.create(elements, fpp);
+		println("BinaryFuseFilter "+fuse.stats());	// fillRatio ~0.85
+		try {
+			fuse.put("element");
+		}catch(UnsupportedOperationException e) {
+			println("put into a BinaryFuseFilter: "+e.getMessage());
+		}
+		println();
+
+		// an overfilled filter
+		Filter<String> cuckoo = FilterType.CUCKOO.create(expectedCapacity / 2, fpp);
+		cuckoo.putAll(elements);
+		println("overfilled CUCKOO "+cuckoo.stats());	// fillRatio 1, numOfKickoutElements > 0
+		Filter<String> bloom = FilterType.BLOOM.create(expectedCapacity / 2, fpp);
+		bloom.putAll(elements);
+		println("overfilled BLOOM "+bloom.stats());	// fillRatio > 0.5, currentFpp > 0.001
+		println();
+	}
+
+	private static void println() { System.out.println(); }
+
+	private static <T> void println(T obj) { System.out.println(obj); }
+
+}
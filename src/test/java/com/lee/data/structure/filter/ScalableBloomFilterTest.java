@@ -0,0 +1,37 @@
+package com.lee.data.structure.filter;
+
+public class ScalableBloomFilterTest {
+
+	public static void main(String[] args) {
+		int initialCapacity = 10000;
+		double fpp = 0.001;	// 0.1%
+		ScalableBloomFilter<String> filter = ScalableBloomFilter.create(initialCapacity, fpp);
+
+		// 50 times of the initial capacity
+		int n = initialCapacity * 50;
+		for(int i=0; i<n; i++) { filter.put("element-"+i); }
+		println("put again: "+filter.put("element-0"));	// false
+
+		int falseNegatives = 0, falsePositives = 0;
+		for(int i=0; i<n; i++) {
+			if(!filter.mightContain("element-"+i)) { falseNegatives++; }
+			if(filter.mightContain("absent-"+i)) { falsePositives++; }
+		}
+		println("numOfStages: "+filter.numOfStages());	// 6
+		println("falseNegatives: "+falseNegatives);	// 0
+		println("fpp: "+((double)falsePositives / n)+" (bound "+fpp+"), currentFpp: "+filter.currentFpp());
+		println("approximateElementCount: "+filter.approximateElementCount()+" (put "+n+")");
+		println();
+
+		// a fixed size filter of the initial capacity, for comparison
+		BloomFilter<String> fixed = BloomFilter.create(initialCapacity, fpp);
+		for(int i=0; i<n; i++) { fixed.put("element-"+i); }
+		println("fixed size currentFpp: "+fixed.currentFpp());
+		println();
+	}
+
+	private static void println() { System.out.println(); }
+
+	private static <T> void println(T obj) { System.out.println(obj); }
+
+}
@@ -0,0 +1,48 @@
+package com.lee.data.structure.filter;
+
+public class ScalableCuckooFilterTest {
+
+	public static void main(String[] args) {
+		int initialCapacity = 10000;
+		double fpp = 0.001;	// 0.1%
+		ScalableCuckooFilter<String> filter = ScalableCuckooFilter.create(initialCapacity, fpp);
+
+		// 50 times of the initial capacity
+		int n = initialCapacity * 50;
+		for(int i=0; i<n; i++) { filter.put("element-"+i); }
+
+		int falseNegatives = 0, falsePositives = 0;
+		for(int i=0; i<n; i++) {
+			if(!filter.mightContain("element-"+i)) { falseNegatives++; }
+			if(filter.mightContain("absent-"+i)) { falsePositives++; }
+		}
+		println("numOfStages: "+filter.numOfStages());	// 6
+		println("numOfExistedElements: "+filter.numOfExistedElements()+" (put "+n+")");
+		println("falseNegatives: "+falseNegatives);	// 0
+		println("fpp: "+((double)falsePositives / n)+" (bound "+fpp+")");
+
+		// remove the odd ones, the even ones are still there
+		int removed = 0;
+		for(int i=1; i<n; i+=2) { if(filter.remove("element-"+i)) { removed++; } }
+		falseNegatives = 0;
+		for(int i=0; i<n; i+=2) {
+			if(!filter.mightContain("element-"+i)) { falseNegatives++; }
+		}
+		// ~250000, a removal taking a colliding fingerprint of a newer stage fails the later removal of that element
+		println("removed: "+removed+" (of "+(n / 2)+")");
+		// a few, below n * fpp, a removal might take a colliding fingerprint of a newer stage, see ScalableCuckooFilter.remove(Object)
+		println("falseNegatives after removal: "+falseNegatives+" (bound "+(long) (n * fpp)+")");
+		println();
+
+		// a fixed size filter of the initial capacity, for comparison
+		CuckooFilter<String> fixed = CuckooFilter.create(initialCapacity, fpp);
+		for(int i=0; i<initialCapacity * 2; i++) { fixed.put("element-"+i); }
+		println("fixed size numOfKickoutElements: "+fixed.numOfKickoutElements());
+		println();
+	}
+
+	private static void println() { System.out.println(); }
+
+	private static <T> void println(T obj) { System.out.println(obj); }
+
+}
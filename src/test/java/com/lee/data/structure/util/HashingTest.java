@@ -0,0 +1,283 @@
+package com.lee.data.structure.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+public class HashingTest {
+
+	public static void main(String[] args) {
+		primitiveTest();
+		seedTest();
+		algorithmTest();
+		hasherTest();
+		memoryTest();
+		sinkTest();
+		hashAllTest();
+	}
+
+	/** the primitive entry points must agree with hash(Object, int) on the same input **/
+	private static void primitiveTest() {
+		long[] dest = new long[2];
+
+		Hashing.murmur3_128(123456789L, dest);
+		println("long 128: " + same(dest, Hashing.hash(123456789L, 128)));		// true
+		Hashing.murmur3_128(42, dest);
+		println("int 128: " + same(dest, Hashing.hash(42, 128)));		// true
+		String[] strings = {"a", "abcdefg", "abcdefgh", "abcdefghijklmnopq", "1234567890123456789012345"};
+		for(String str : strings) {
+			Hashing.murmur3_128(str, dest);
+			println("chars 128 {"+str+"}: " + same(dest, Hashing.hash(str, 128)));	// true
+			println("chars 32 {"+str+"}: " + (Hashing.murmur3_32(str) == Hashing.hash(str, 32).asInt()));	// true
+		}
+		println("long 32: " + (Hashing.murmur3_32(123456789L) == Hashing.hash(123456789L, 32).asInt()));	// true
+		println("int 32: " + (Hashing.murmur3_32(42) == Hashing.hash(42, 32).asInt()));	// true
+
+		byte[] bytes = "abcdefghijklmnopq".getBytes();
+		long[] dest2 = new long[2];
+		Hashing.murmur3_128(bytes, 1, 15, dest);
+		Hashing.murmur3_128(Arrays.copyOfRange(bytes, 1, 16), 0, 15, dest2);
+		println("bytes 128 offset: " + (dest[0] == dest2[0] && dest[1] == dest2[1]));	// true
+		println("bytes 32 offset: " + (Hashing.murmur3_32(bytes, 1, 15) == Hashing.murmur3_32(Arrays.copyOfRange(bytes, 1, 16), 0, 15)));	// true
+		println();
+	}
+
+	/** the same seed hashes the same, no matter which instance or JVM **/
+	private static void seedTest() {
+		HashFunction f1 = Hashing.murmur3(20170101L);
+		HashFunction f2 = Hashing.murmur3(20170101L);
+		HashFunction f3 = Hashing.murmur3(20170102L);
+		println(f1 + " equals " + f2 + ": " + f1.equals(f2));	// true
+		println("same seed: " + (f1.hash32("abcdefg") == f2.hash32("abcdefg")));	// true
+		println("different seed: " + (f1.hash32("abcdefg") == f3.hash32("abcdefg")));	// false
+		long[] dest = new long[2];
+		f1.hash128("abcdefg", dest);
+		println("seeded object 128: " + same(dest, f2.hash("abcdefg", 128)));	// true
+		println("default seed: " + (Hashing.murmur3().hash32(42) == Hashing.murmur3_32(42)));	// true
+		println();
+	}
+
+	/** the 64 bits algorithms must agree with their reference implementations, XXH64 and wyhash final4 **/
+	private static void algorithmTest() {
+		long[] dest = new long[2];
+		String[] strings = {"", "a", "abc", "abcdefgh", "abcdefghijklmnopq", "0123456789012345678901234567890123456789"};
+		long[] xxHash64s = {0xef46db3751d8e999L, 0xd24ec4f1a98c6e5bL, 0x44bc2cf5ad770999L,
+				0x3ad351775b4634b7L, 0x8feff49d8f62f402L, 0xca6fc80cbde1a931L};
+		long[] seededXxHash64s = {0x33edd54f650bdd08L, 0xc1b3cce1335158c9L, 0xb875570a4f1198ffL,
+				0x5592ecb3833e726aL, 0xc8db3617881eb3c0L, 0x82cc24eca03a49e1L};
+		HashFunction xxHash64 = Hashing.xxHash64(0), seededXxHash64 = Hashing.xxHash64(20170101L);
+		boolean same = true;
+		for(int i=0; i<strings.length; i++) {
+			byte[] bytes = strings[i].getBytes(StandardCharsets.US_ASCII);
+			xxHash64.hash128(bytes, 0, bytes.length, dest);
+			same &= dest[0] == xxHash64s[i];
+			seededXxHash64.hash128(bytes, 0, bytes.length, dest);
+			same &= dest[0] == seededXxHash64s[i];
+		}
+		println("xxhash64 bytes: " + same);	// true
+		xxHash64.hash128(123456789L, dest);
+		println("xxhash64 long: " + (dest[0] == 0xcb7c2941b198004dL));	// true
+		xxHash64.hash128(Integer.valueOf(42), dest);
+		println("xxhash64 int: " + (dest[0] == 0xd756d7b62fc50bf1L));	// true
+		xxHash64.hash128("abcdefg", dest);
+		println("xxhash64 chars: " + (dest[0] == 0xb9e5459c8f6ddf61L));	// true
+		
+		strings = new String[] {"", "a", "ab", "abcd", "abcdefghijklmnop", "abcdefghijklmnopq",
+				"0123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789"};
+		long[] wyhashs = {0x0e3f88947c536d6aL, 0x7373752b27f68037L, 0x02ccc2247dafb077L, 0x1db383cf205ea734L,
+				0x173c7a970cb65084L, 0x3b058e839687868dL, 0x74208bc113af45e4L};
+		long[] charWyhashs = {0x0e3f88947c536d6aL, 0xf56a189c8efb8dc4L, 0xfcd1705322674488L, 0xc1b130d7e3f194c1L,
+				0x0b08e6cdae614c29L, 0x07250f8998223f5cL, 0x38cdd50299ea265cL};
+		HashFunction wyhash = Hashing.wyhash(20170101L);
+		same = true;
+		for(int i=0; i<strings.length; i++) {
+			byte[] bytes = strings[i].getBytes(StandardCharsets.US_ASCII);
+			wyhash.hash128(bytes, 0, bytes.length, dest);
+			same &= dest[0] == wyhashs[i];
+			wyhash.hash128(strings[i], dest);
+			same &= dest[0] == charWyhashs[i];
+		}
+		println("wyhash bytes and chars: " + same);	// true
+		Hashing.wyhash(0).hash128(123456789L, dest);
+		println("wyhash long: " + (dest[0] == 0x53fdc846b98932a4L));	// true
+		Hashing.wyhash(0).hash128(Integer.valueOf(42), dest);
+		println("wyhash int: " + (dest[0] == 0x20136d0cb2ee3296L));	// true
+		
+		HashFunction f1 = HashAlgorithm.XXHASH64.withSeed(20170101L);
+		println(f1 + " equals " + seededXxHash64 + ": " + f1.equals(seededXxHash64));	// true
+		println(wyhash + " equals " + seededXxHash64 + ": " + wyhash.equals(seededXxHash64));	// false
+		println("id round trip: " + (HashAlgorithm.ofId(HashAlgorithm.WYHASH.id()) == HashAlgorithm.WYHASH));	// true
+		long[] dest2 = new long[2];
+		wyhash.hash128("abcdefg", dest);
+		wyhash.hash128(new StringBuilder("abcdefg"), dest2);
+		println("String equals CharSequence: " + (dest[0] == dest2[0] && dest[1] == dest2[1]));	// true
+		wyhash.hash128(Integer.valueOf(42), dest);
+		println("wyhash object 64: " + (wyhash.hash(42, 64).asLong() == dest[0]));	// true
+		xxHash64.hash128("abcdefg", dest);
+		println("xxhash64 object 64: " + (xxHash64.hash("abcdefg", 64).asLong() == dest[0]));	// true
+		println();
+	}
+
+	/** a composite key, hashed field by field **/
+	private static final class Point {
+		final int x;
+		final long y;
+		final String label;
+		
+		Point(int x, long y, String label) {
+			this.x = x;
+			this.y = y;
+			this.label = label;
+		}
+	}
+	
+	private static final Funnel<Point> POINT_FUNNEL = new Funnel<Point>() {
+		@Override
+		public void funnel(Point from, Hasher into) {
+			into.putInt(from.x).putLong(from.y).putInt(from.label.length()).putUnencodedChars(from.label);
+		}
+	};
+	
+	/** a hasher must hash the same as the primitive entry points, for every algorithm **/
+	private static void hasherTest() {
+		long[] dest = new long[2], dest2 = new long[2];
+		for(HashAlgorithm algorithm : HashAlgorithm.values()) {
+			HashFunction hashFunction = algorithm.withSeed(20170101L);
+			Hasher hasher = hashFunction.newHasher();
+			boolean same = true;
+			hasher.putLong(123456789L).hash128(dest);
+			hashFunction.hash128(123456789L, dest2);
+			same &= dest[0] == dest2[0] && dest[1] == dest2[1];
+			hasher.putUnencodedChars("abcdefghijklmnopq").hash128(dest);	// reused after a reset
+			hashFunction.hash128("abcdefghijklmnopq", dest2);
+			same &= dest[0] == dest2[0] && dest[1] == dest2[1];
+			hasher.putChar('a').putChar('b').putBytes(ByteBuffer.wrap(new byte[] {'c', 0})).hash128(dest);
+			hashFunction.hash128("abc", dest2);
+			same &= dest[0] == dest2[0] && dest[1] == dest2[1];
+			println(algorithm+" hasher same as entry points: "+same);	// true
+			
+			Point p1 = new Point(1, 2L, "ab"), p2 = new Point(1, 2L, "ab"), p3 = new Point(1, 2L, "ac");
+			hasher.putObject(p1, POINT_FUNNEL).hash128(dest);
+			hasher.putObject(p2, POINT_FUNNEL).hash128(dest2);
+			println(algorithm+" equal points: "+(dest[0] == dest2[0] && dest[1] == dest2[1]));	// true
+			hasher.putObject(p3, POINT_FUNNEL).hash128(dest2);
+			println(algorithm+" different points: "+(dest[0] == dest2[0] && dest[1] == dest2[1]));	// false
+			println(algorithm+" hash() same as hash128: "+same(dest, hasher.putObject(p1, POINT_FUNNEL).hash()));	// true
+		}
+		// primitive arrays are hashed by their elements, the same as their boxed ones
+		HashFunction hashFunction = Hashing.murmur3(20170101L);
+		println("long[] same as Long[]: "+(hashFunction.hash(new long[] {1, 2, 3}, 128).asLong() 
+				== hashFunction.hash(new Long[] {1L, 2L, 3L}, 128).asLong()));	// true
+		println("mixed array: "+(hashFunction.hash(new Object[] {1, 2L, new int[] {3, 4}}, 32).asInt()
+				== hashFunction.hash(new Object[] {1, 2L, 3, 4}, 32).asInt()));	// true
+		println();
+	}
+
+	/** direct buffers and memory are read in place, they must hash the same as the bytes, for every length **/
+	private static void memoryTest() {
+		long[] dest = new long[2], dest2 = new long[2];
+		byte[] bytes = new byte[100];
+		for(int i=0; i<bytes.length; i++) { bytes[i] = (byte) (i * 31 + 7); }
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 3);
+		direct.position(3);
+		direct.put(bytes);
+		long address = PlatformDependent.directBufferAddress(direct) + 3;
+		for(HashAlgorithm algorithm : HashAlgorithm.values()) {
+			HashFunction hashFunction = algorithm.withSeed(20170101L);
+			boolean same = true, unchanged = true;
+			for(int len=0; len<=bytes.length; len++) {
+				hashFunction.hash128(bytes, 0, len, dest);
+				direct.limit(3 + len).position(3);
+				hashFunction.hash128(direct, dest2);
+				same &= dest[0] == dest2[0] && dest[1] == dest2[1];
+				unchanged &= direct.position() == 3;
+				hashFunction.hash128(ByteBuffer.wrap(bytes, 0, len).asReadOnlyBuffer(), dest2);	// copied
+				same &= dest[0] == dest2[0] && dest[1] == dest2[1];
+				if(len > 0) {
+					hashFunction.hashMemory128(address, len, dest2);
+					same &= dest[0] == dest2[0] && dest[1] == dest2[1];
+				}
+			}
+			println(algorithm+" direct buffer and memory same as bytes: "+same+", position unchanged: "+unchanged);	// true, true
+			
+			// UTF-16LE bytes hash the same as the chars, an independent path
+			String chars = "abcdefghijklmnopqrstuvwxyz0123456789";
+			byte[] utf16 = chars.getBytes(StandardCharsets.UTF_16LE);
+			hashFunction.hash128(chars, dest);
+			hashFunction.hash128(utf16, 0, utf16.length, dest2);
+			println(algorithm+" bytes same as chars: "+(dest[0] == dest2[0] && dest[1] == dest2[1]));	// true
+		}
+		println();
+	}
+
+	/** a reused sink must hold the first bytes of a new hash code of the same bits, for every algorithm **/
+	private static void sinkTest() {
+		Object[] objects = {"", "abcdefghijklmnopq", new StringBuilder("abc"), 42, 123456789L, new byte[] {1, 2, 3}, new Object[] {1, "a"}};
+		int[] bits = {8, 32, 64, 100, 128, 129, 200, 256, 300};
+		for(HashAlgorithm algorithm : HashAlgorithm.values()) {
+			HashFunction hashFunction = algorithm.withSeed(20170101L);
+			boolean same = true;
+			for(int numOfBits : bits) {
+				HashCode sink = HashCode.allocate(numOfBits);
+				for(Object object : objects) {
+					hashFunction.hash(object, sink);
+					byte[] bytes = hashFunction.hash(object, numOfBits).asBytes();
+					same &= Arrays.equals(sink.asBytes(), Arrays.copyOf(bytes, sink.asBytes().length));
+				}
+			}
+			println(algorithm+" sink same as new hash code: "+same);	// true
+		}
+		byte[] bytes = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11};
+		println("asLong from index: "+(HashCode.asLong(bytes, 2) == 0x0a09080706050403L)+", "
+				+(HashCode.asLong(bytes, 5) == 0x0b0a090807060000L >>> 16));	// true, true
+		println("asNthLong: "+(HashCode.asNthLong(bytes, 2) == 0x0b0a09L));	// true
+		println();
+	}
+
+	private static boolean same(long[] dest, HashCode hashCode) {
+		long[] longs = hashCode.asLongs();
+		return dest[0] == longs[0] && dest[1] == longs[1];
+	}
+
+	/** the parallel bulk hashing must agree with hash128 one by one, of both sides of the task threshold **/
+	private static void hashAllTest() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for(int n : new int[] {0, 100, 100000}) {
+			String[] keys = new String[n];
+			long[] longKeys = new long[n];
+			for(int i=0; i<n; i++) {
+				keys[i] = "key-"+i;
+				longKeys[i] = i * 0x9e3779b97f4a7c15L;
+			}
+			for(HashAlgorithm algorithm : HashAlgorithm.values()) {
+				HashFunction hashFunction = algorithm.withSeed(20170101L);
+				long[] hashCodes = new long[n << 1], longHashCodes = new long[n << 1], firstHashCodes = new long[n];
+				hashFunction.hashAll(keys, hashCodes, pool);
+				hashFunction.hashAll(longKeys, longHashCodes);
+				hashFunction.hashAll64(keys, firstHashCodes);
+				long[] hashCode = new long[2];
+				boolean same = true;
+				for(int i=0; i<n; i++) {
+					hashFunction.hash128(keys[i], hashCode);
+					same &= hashCodes[i<<1] == hashCode[0] && hashCodes[(i<<1)+1] == hashCode[1] && firstHashCodes[i] == hashCode[0];
+					hashFunction.hash128(longKeys[i], hashCode);
+					same &= longHashCodes[i<<1] == hashCode[0] && longHashCodes[(i<<1)+1] == hashCode[1];
+				}
+				println(algorithm+" hashAll of "+n+" keys same as hash128: "+same);	// true
+			}
+		}
+		try {
+			Hashing.hashAll(new String[] {"a", "b"}, new long[3]);
+			println("short dest accepted");
+		}catch(IllegalArgumentException e) {
+			println("short dest rejected: "+e.getMessage());	// dest length (3) must be >= 4
+		}
+		pool.shutdown();
+		println();
+	}
+	
+	private static void println() { System.out.println(); }
+
+	private static <T> void println(T obj) { System.out.println(obj); }
+}